@@ -10,6 +10,9 @@ import de.davidrival.softstep.controller.Page;
 import de.davidrival.softstep.controller.PadConfigurationManager;
 import de.davidrival.softstep.controller.SoftstepController;
 import de.davidrival.softstep.controller.StudioIOPanelManager;
+import de.davidrival.softstep.debug.DebugLogger;
+import de.davidrival.softstep.hardware.LedMessageEncoder;
+import de.davidrival.softstep.hardware.MidiOutputScheduler;
 import de.davidrival.softstep.hardware.SoftstepHardware;
 
 public class SoftstepperExtension extends ControllerExtension
@@ -19,6 +22,13 @@ public class SoftstepperExtension extends ControllerExtension
 
    Transport transport;
 
+   private static final String[] LED_PADDING_OPTIONS = {
+           LedMessageEncoder.PaddingPolicy.FULL.name()
+           , LedMessageEncoder.PaddingPolicy.SINGLE.name()
+           , LedMessageEncoder.PaddingPolicy.NONE.name()
+   };
+
+   SoftstepHardware softstepHardware;
    SoftstepController softstepController;
    PadConfigurationManager padConfigurationManager;
    StudioIOPanelManager studioIOPanelManager;
@@ -43,7 +53,19 @@ public class SoftstepperExtension extends ControllerExtension
       midiIn.setMidiCallback((ShortMidiMessageReceivedCallback) this::onMidi0);
       midiIn.setSysexCallback(this::onSysex0);
 
-      SoftstepHardware softstepHardware = new SoftstepHardware(midiOut);
+      softstepHardware = new SoftstepHardware(midiOut, host::requestFlush);
+
+      // Bounds how long a page repaint can hold back clip state LEDs
+      SettableRangedValue messagesPerFlush = host.getPreferences().getNumberSetting(
+              "MIDI Messages per Flush", "Hardware", 12, 600, 6, "msgs"
+              , MidiOutputScheduler.DEFAULT_MESSAGES_PER_FLUSH);
+      messagesPerFlush.addRawValueObserver(value -> softstepHardware.setMessagesPerFlush((int) value));
+
+      // Padding messages after each LED update, fewer is faster but older firmware might drop updates
+      SettableEnumValue ledPadding = host.getPreferences().getEnumSetting(
+              "LED Padding", "Hardware", LED_PADDING_OPTIONS, LedMessageEncoder.PaddingPolicy.FULL.name());
+      ledPadding.addValueObserver(value -> softstepHardware.setLedPaddingPolicy(
+              LedMessageEncoder.PaddingPolicy.valueOf(value)));
 
       ControllerPages controllerPages = new ControllerPages(Page.PERF);
       softstepController = new SoftstepController(controllerPages
@@ -70,6 +92,7 @@ public class SoftstepperExtension extends ControllerExtension
    public void exit()
    {
       softstepController.exit();
+      DebugLogger.setSink(null);
 
       getHost().showPopupNotification("BWSSoftstepper Exited");
    }
@@ -77,7 +100,16 @@ public class SoftstepperExtension extends ControllerExtension
    @Override
    public void flush()
    {
-      // TODO Send any updates you need here.
+      // Observers only write into the host state mirror, render what changed since the last flush
+      if (softstepController != null) {
+         softstepController.getApiManager().getApiFromHost().flush();
+         // Pad values of the last frame, at most one per user control
+         softstepController.getApiManager().getApiToHost().flushUserControls();
+      }
+      // LED and display messages are queued from everywhere and written out here
+      if (softstepHardware != null) {
+         softstepHardware.flush();
+      }
    }
 
    /** Called when we receive short MIDI message on port 0. */
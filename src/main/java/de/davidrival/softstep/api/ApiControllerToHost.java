@@ -1,40 +1,80 @@
 package de.davidrival.softstep.api;
 
+import com.bitwig.extension.controller.api.ClipLauncherSlotBank;
 import com.bitwig.extension.controller.api.Parameter;
 import de.davidrival.softstep.controller.Page;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicInteger;
-
 import static de.davidrival.softstep.api.ApiManager.USER_CONTROL_PARAMETER_RESOLUTION;
 
 public class ApiControllerToHost extends BaseConsolePrinter {
 
     private final ApiManager api;
 
+    /** Pad values wait here for the next flush, unchanged values are dropped */
+    private final UserControlOutput userControlOutput;
+
     public ApiControllerToHost(ApiManager api) {
         super(api.getHost());
         this.api = api;
+        this.userControlOutput = new UserControlOutput(ApiManager.AMOUNT_USER_CONTROLS
+                , this::setValueOfUserControl, api.getHost()::requestFlush);
     }
 
+    /**
+     * @param number the pad, launches the grid cell it shows
+     */
     public void fireSlotAt(int number) {
-        api.getSlotBank()
-                .launch(number);
+        int cell = api.getClipGrid().cellOfPad(number);
+        if (cell == ClipGrid.NO_CELL) return;
+
+        slotBankOf(cell)
+                .launch(api.getClipGrid().sceneOf(cell));
     }
 
+    /**
+     * @param number the pad, deletes the clip of the grid cell it shows
+     */
     public void deleteSlotAt(int number) {
-        api.getSlotBank()
-                .getItemAt(number)
+        int cell = api.getClipGrid().cellOfPad(number);
+        if (cell == ClipGrid.NO_CELL) return;
+
+        slotBankOf(cell)
+                .getItemAt(api.getClipGrid().sceneOf(cell))
                 .deleteObject();
     }
 
+    private ClipLauncherSlotBank slotBankOf(int cell) {
+        return api.getTrackBank()
+                .getItemAt(api.getClipGrid().trackOf(cell))
+                .clipLauncherSlotBank();
+    }
+
+    /**
+     * Hands a pad value to the {@link UserControlOutput}, it is sent on the next flush if it changes the control.
+     *
+     * @param deadband changes smaller than this are dropped, 0 only drops equal values
+     * @param rangeStart value the pad sends at the start of its range, never dropped by the deadband
+     * @param rangeEnd value the pad sends at the end of its range, never dropped by the deadband
+     * @return false if the value was dropped
+     */
+    public boolean offerValueOfUserControl(int index, int value, int deadband, int rangeStart, int rangeEnd) {
+        return userControlOutput.offer(index, value, deadband, rangeStart, rangeEnd);
+    }
+
+    /**
+     * Sends the pending user control values, called on every host flush.
+     */
+    public void flushUserControls() {
+        userControlOutput.flush();
+    }
+
     public void setValueOfUserControl(int index, int value) {
         Parameter parameter = api.getUserControls()
                 .getControl(index);
         
         // Use original method to maintain UserControl identity for mapping
         parameter.set(value, USER_CONTROL_PARAMETER_RESOLUTION);
+        userControlOutput.recordSent(index, value);
 
         // update LEDs only for pad UserControls (0-9), not for long press (10-19)
         if (index < 10) {
@@ -62,6 +102,7 @@ public class ApiControllerToHost extends BaseConsolePrinter {
         
         // Apply immediately - bypasses takeover mode completely
         parameter.setImmediately(normalizedValue);
+        userControlOutput.recordSent(index, value);
 
         // update LEDs only for pad UserControls (0-9), not for long press (10-19)
         if (index < 10) {
@@ -73,25 +114,62 @@ public class ApiControllerToHost extends BaseConsolePrinter {
 
     public void clipSlotBankDown() {
 //        p("clipSlotBankUp");
+        if (api.getTrackBank().canScrollForwards().get()) {
+            showViewportAfterScroll(1, 0);
+        }
         api.getTrackBank().scrollForwards();
         api.getTrack().selectInMixer();
     }
 
     public void clipSlotBankUp() {
 //        p("clipSlotBankDown");
+        if (api.getTrackBank().canScrollBackwards().get()) {
+            showViewportAfterScroll(-1, 0);
+        }
         api.getTrackBank().scrollBackwards();
         api.getTrack().selectInMixer();
     }
 
+    /**
+     * Draws the window the banks are about to scroll to from the look-ahead cache.
+     */
+    private void showViewportAfterScroll(int tracks, int scenes) {
+        api.getApiFromHost().predictViewport(
+                Math.max(0, api.getTrackBank().scrollPosition().get() + tracks)
+                , Math.max(0, api.getSceneBank().scrollPosition().get() + scenes));
+    }
+
     public void clipSlotBankLeft() {
 //        p("clipSlotBankLeft");
+        // Scenes of the grid outside the view come first, they are known already
+        if (api.getClipGrid().scrollView(-1)) {
+            api.getApiFromHost().showGridView();
+            return;
+        }
+        if (!api.getSceneBank().canScrollBackwards().get()) return;
+
+        showViewportAfterScroll(0, -api.getClipGrid().getScenes());
         api.getSceneBank().scrollByPages(-1);
+        // continue with the last scenes of the previous page
+        if (api.getClipGrid().moveViewToEnd(false)) {
+            api.getApiFromHost().showGridView();
+        }
 
     }
 
     public void clipSlotBankRight() {
 //        p("clipSlotBankRight");
+        if (api.getClipGrid().scrollView(1)) {
+            api.getApiFromHost().showGridView();
+            return;
+        }
+        if (!api.getSceneBank().canScrollForwards().get()) return;
+
+        showViewportAfterScroll(0, api.getClipGrid().getScenes());
         api.getSceneBank().scrollByPages(1);
+        if (api.getClipGrid().moveViewToEnd(true)) {
+            api.getApiFromHost().showGridView();
+        }
     }
 
     public void armTrack() {
@@ -107,9 +185,10 @@ public class ApiControllerToHost extends BaseConsolePrinter {
     }
 
     public void deleteAllSlots() {
-        int size = api.getSlotBank().getSizeOfBank();
+        ClipLauncherSlotBank slotBank = api.getSlotBank();
+        int size = slotBank.getSizeOfBank();
         for (int i = 0; i < size; i++) {
-            deleteSlotAt(i);
+            slotBank.getItemAt(i).deleteObject();
         }
     }
     
@@ -149,14 +228,11 @@ public class ApiControllerToHost extends BaseConsolePrinter {
             description, userControlIndex, burstCount
         ));
         
-        // Create timer for burst signals
-        Timer signalTimer = new Timer();
-        AtomicInteger signalsSent = new AtomicInteger(0);
+        // Schedule the burst signals on the host thread, the counter is only touched there
+        int[] signalsSent = {0};
         
-        signalTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                int currentSignal = signalsSent.incrementAndGet();
+        api.getScheduler().scheduleRepeating(() -> {
+                int currentSignal = ++signalsSent[0];
                 
                 // Send the UserControl value
                 setValueOfUserControl(userControlIndex, value);
@@ -174,11 +250,8 @@ public class ApiControllerToHost extends BaseConsolePrinter {
                     ));
                 }
                 
-                // Stop after sending all signals
+                // The scheduler stops after burstCount runs
                 if (currentSignal >= burstCount) {
-                    this.cancel();
-                    signalTimer.cancel();
-                    
                     // Completion callback
                     if (onComplete != null) {
                         onComplete.run();
@@ -195,8 +268,7 @@ public class ApiControllerToHost extends BaseConsolePrinter {
                         userControlIndex, burstCount, description
                     ));
                 }
-            }
-        }, 0, burstDelayMs); // Start immediately, repeat every delayMs
+        }, 0, burstDelayMs, burstCount); // Start immediately, repeat every delayMs
     }
     
     /**
@@ -245,14 +317,11 @@ public class ApiControllerToHost extends BaseConsolePrinter {
             description, userControlIndex, startValue, targetValue, rampSteps
         ));
         
-        // Create timer for ramped signals
-        Timer rampTimer = new Timer();
-        AtomicInteger stepsSent = new AtomicInteger(0);
+        // Schedule the ramped signals on the host thread, the counter is only touched there
+        int[] stepsSent = {0};
         
-        rampTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                int currentStep = stepsSent.incrementAndGet();
+        api.getScheduler().scheduleRepeating(() -> {
+                int currentStep = ++stepsSent[0];
                 
                 // Calculate current value based on ramp progress
                 int currentValue;
@@ -274,11 +343,8 @@ public class ApiControllerToHost extends BaseConsolePrinter {
                     currentStep, rampSteps, userControlIndex, currentValue, description
                 ));
                 
-                // Stop after sending all steps
+                // The scheduler stops after rampSteps runs
                 if (currentStep >= rampSteps) {
-                    this.cancel();
-                    rampTimer.cancel();
-                    
                     // Final notification and logging
                     api.getHost().showPopupNotification(String.format(
                         "%s / UserControl%d Ramp Complete (final: %d)",
@@ -290,7 +356,6 @@ public class ApiControllerToHost extends BaseConsolePrinter {
                         userControlIndex, rampSteps, targetValue, description
                     ));
                 }
-            }
-        }, 0, burstDelayMs); // Start immediately, repeat every delayMs
+        }, 0, burstDelayMs, rampSteps); // Start immediately, repeat every delayMs
     }
 }
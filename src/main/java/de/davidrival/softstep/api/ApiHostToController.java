@@ -1,21 +1,31 @@
 package de.davidrival.softstep.api;
 
+import com.bitwig.extension.controller.api.ClipLauncherSlot;
+import com.bitwig.extension.controller.api.ClipLauncherSlotBank;
+import de.davidrival.softstep.controller.BwsTrackDiscoveryService;
+import de.davidrival.softstep.controller.LedStates;
 import de.davidrival.softstep.controller.Page;
+import de.davidrival.softstep.debug.DebugLogger;
 import lombok.Setter;
 
-import java.util.Timer;
-
 import static de.davidrival.softstep.api.ApiManager.*;
-import static de.davidrival.softstep.api.ApiManager.PLAYBACK_EVENT.*;
-import static de.davidrival.softstep.api.ApiManager.PLAYBACK_EVENT.PLAYBACK_STATE_NOT_KNOWN;
 import static de.davidrival.softstep.controller.Page.CLIP_LED_STATES.*;
 
 @Setter
-public class ApiHostToController extends BaseConsolePrinter {
+public class ApiHostToController extends BaseConsolePrinter implements HostStateMirror.Renderer {
+
+    /** LED of each {@link ClipSlotStateMachine} state */
+    private static final LedStates[] SLOT_LED_STATES = {OFF, STOP, STOP_QUE, PLAY, PLAY_QUE, REC, REC_QUE};
+
+    /** Time Bitwig gets to report a scroll, then the predicted viewport is checked against it */
+    private static final int VIEWPORT_SETTLE_MS = 250;
+    private static final Object VIEWPORT_CHECK_KEY = new Object();
 
     private final ApiManager api;
 
-    private Timer timer;
+    /** Project position of the first track and scene the grid cells show */
+    private int viewportTrack = 0;
+    private int viewportScene = 0;
 
     public ApiHostToController(ApiManager apiManager) {
         super(apiManager.getHost());
@@ -27,8 +37,42 @@ public class ApiHostToController extends BaseConsolePrinter {
         this.api.getTrackCurser().mute().addValueObserver(this::onMuteChanged);
         this.api.getTrackCurser().mute().markInterested();
 
-        api.getSlotBank().addHasContentObserver(this::onContentInSlotBankChanged);
-        api.getSlotBank().addPlaybackStateObserver(this::onPlaybackStateChanged);
+        SubscriptionManager subscriptions = api.getSubscriptions();
+        subscriptions.register(SubscriptionManager.CHANNEL_STRIP, api.getTrackCurser().mute(), api.getTrackCurser().arm());
+        subscriptions.onResubscribed(SubscriptionManager.CHANNEL_STRIP, () -> {
+            onMuteChanged(api.getTrackCurser().mute().get());
+            onArmChanged(api.getTrackCurser().arm().get());
+        });
+
+        // The look-ahead cache stays around the visible window, wherever it scrolls to
+        api.getTrackBank().scrollPosition().markInterested();
+        api.getSceneBank().scrollPosition().markInterested();
+        api.getTrackBank().scrollPosition().addValueObserver(track -> onViewportScrolled());
+        api.getSceneBank().scrollPosition().addValueObserver(scene -> onViewportScrolled());
+
+        // Every track of the grid reports its slots, observers only update their cell
+        ClipGrid grid = api.getClipGrid();
+        for (int t = 0; t < grid.getTracks(); t++) {
+            final int track = t;
+            ClipLauncherSlotBank slots = api.getTrackBank().getItemAt(track).clipLauncherSlotBank();
+            slots.addHasContentObserver((scene, hasContent) ->
+                    onContentInSlotBankChanged(grid.cellOf(track, scene), hasContent));
+            slots.addPlaybackStateObserver((scene, playbackState, isQueued) ->
+                    onPlaybackStateChanged(grid.cellOf(track, scene), playbackState, isQueued));
+            subscriptions.register(SubscriptionManager.CLIP_STATE, slots);
+            // read when a predicted scroll went elsewhere
+            for (int scene = 0; scene < grid.getScenes(); scene++) {
+                ClipLauncherSlot slot = slots.getItemAt(scene);
+                slot.hasContent().markInterested();
+                slot.isPlaying().markInterested();
+                slot.isRecording().markInterested();
+                slot.isPlaybackQueued().markInterested();
+                slot.isRecordingQueued().markInterested();
+                slot.isStopQueued().markInterested();
+            }
+        }
+        // Bitwig resends the slots, cells which were already right still have to be drawn
+        subscriptions.onResubscribed(SubscriptionManager.CLIP_STATE, api.getHostState()::invalidateSlots);
 
     }
 
@@ -36,59 +80,174 @@ public class ApiHostToController extends BaseConsolePrinter {
 
     private void onMuteChanged(boolean onOff) {
 //        p("! onMuteChanged: " + onOff);
-        // Use PERF-aware LED update method for hybrid mode compatibility
-        api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, Page.PAD_INDICES.MUTE_PAD, onOff ?
-                Page.CHANNEL_LED_STATES.MUTED
-                : Page.CHANNEL_LED_STATES.UNMUTED
-        );
+        api.getHostState().setMuted(onOff);
     }
     private void onArmChanged(boolean onOff) {
 //        p("! onArmChanged: " + onOff);
-        // Use PERF-aware LED update method for hybrid mode compatibility
-        api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, Page.PAD_INDICES.ARM_PAD, onOff ?
-                Page.CHANNEL_LED_STATES.ARMED
-                : Page.CHANNEL_LED_STATES.UNARMED
-        );
-
+        api.getHostState().setArmed(onOff);
     }
 
     public void onContentInSlotBankChanged(int idx, boolean onOff) {
 //        p("! content ! slotIdx" + idx + " clip? " + onOff);
-        // Use PERF-aware LED update method for hybrid mode compatibility  
-        api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, idx, onOff ? STOP : OFF);
-        api.getSoftstepController().p(api.getSoftstepController().getPages().getCurrentPage().toString());
+        api.getHostState().onSlotEvent(idx, ClipSlotStateMachine.contentEvent(onOff));
+        DebugLogger.clip(api.getHost(), api.getSoftstepController().getPadConfigManager()
+                , () -> "Cell " + idx + " content changed on page " + api.getSoftstepController().getPages().getCurrentPage());
     }
 
     public void onPlaybackStateChanged(int slotIndex, int index, boolean isQueued) {
 //        p("! playbackStateChanged ! slotIndex " + slotIndex + " playbackState " + playbackEvent.toString() + " isQueued " + isQueued);
-        ApiManager.PLAYBACK_EVENT playbackEvent = getApiEventByCallbackIndex(index);
-        switch (playbackEvent) {
-            case STOPPED:
-                // Use PERF-aware LED update method for hybrid mode compatibility
-                api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, slotIndex, isQueued ? STOP_QUE : STOP);
-                break;
-            case PLAYING:
-                // Use PERF-aware LED update method for hybrid mode compatibility
-                api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, slotIndex, isQueued ? PLAY_QUE : PLAY);
-                break;
-            case RECORDING:
-                // Use PERF-aware LED update method for hybrid mode compatibility
-                api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, slotIndex, isQueued ? REC_QUE : REC);
-                break;
+        int event = ClipSlotStateMachine.playbackEvent(index, isQueued);
+        if (event == ClipSlotStateMachine.NO_EVENT) {
+//            e("Unknown state from PlaybackStateObserver with idx: " + index);
+            return;
+        }
+        api.getHostState().onSlotEvent(slotIndex, event);
+    }
+
+    /**
+     * Renders what changed in the {@link HostStateMirror} since the last flush, called on every host flush.
+     * Observer bursts between two flushes only update the LEDs and the display once.
+     */
+    public void flush() {
+        api.getHostState().render(this);
+    }
+
+    private void onViewportScrolled() {
+        int track = api.getTrackBank().scrollPosition().get();
+        int scene = api.getSceneBank().scrollPosition().get();
+        // nothing to do if the prediction of the scroll was right
+        showViewportFrom(track, scene);
+        api.getLookAheadCache().follow(track, scene);
+        api.getBwsClipCache().followScenes(scene);
+    }
+
+    /**
+     * Draws the clip states of a BWS track a cycle just selected from the {@link BwsClipCache},
+     * the cursor-following bank reports the track later. Only the first track of the grid
+     * follows the cursor, cells the cache doesn't know keep their state.
+     *
+     * @param bwsSlot BWS slot of the selected track
+     */
+    public void showBwsTrack(int bwsSlot) {
+        ClipGrid grid = api.getClipGrid();
+        for (int scene = 0; scene < grid.getScenes(); scene++) {
+            int state = api.getBwsClipCache().stateAt(bwsSlot, scene);
+            if (state != BwsClipCache.UNKNOWN) {
+                api.getHostState().seedSlot(grid.cellOf(0, scene), state);
+            }
         }
     }
 
-    private PLAYBACK_EVENT getApiEventByCallbackIndex(int playbackState) {
-        switch (playbackState) {
-            case 0:
-                return STOPPED;
-            case 1:
-                return PLAYING;
-            case 2:
-                return RECORDING;
-            default:
-//                e("Unknown state from PlaybackStateObserver with idx: " + playbackState);
-                return PLAYBACK_STATE_NOT_KNOWN;
+    /**
+     * Draws the window the banks are about to scroll to, see {@link #showViewportFrom}. Bitwig may not
+     * scroll where predicted, e.g. when it stops at the end of the project. Once it had time to report the
+     * scroll the viewport is checked against the banks and reset to where they are if it differs.
+     *
+     * @param track expected project position of the first track of the window
+     * @param scene expected project position of the first scene of the window
+     */
+    public void predictViewport(int track, int scene) {
+        showViewportFrom(track, scene);
+        api.getScheduler().scheduleCoalesced(VIEWPORT_CHECK_KEY, this::checkViewport, VIEWPORT_SETTLE_MS);
+    }
+
+    private void checkViewport() {
+        int track = api.getTrackBank().scrollPosition().get();
+        int scene = api.getSceneBank().scrollPosition().get();
+        if (track == viewportTrack && scene == viewportScene) return;
+
+        // The cells were seeded for another window, the slots of the banks tell what they show
+        viewportTrack = track;
+        viewportScene = scene;
+        ClipGrid grid = api.getClipGrid();
+        for (int cell = 0; cell < grid.getCells(); cell++) {
+            ClipLauncherSlot slot = api.getTrackBank().getItemAt(grid.trackOf(cell))
+                    .clipLauncherSlotBank().getItemAt(grid.sceneOf(cell));
+            api.getHostState().seedSlot(cell, stateOf(slot));
+        }
+        api.getHostState().invalidateSlots();
+    }
+
+    /**
+     * @return the {@link ClipSlotStateMachine} state the slot is in
+     */
+    private static int stateOf(ClipLauncherSlot slot) {
+        if (slot.isRecordingQueued().get()) return ClipSlotStateMachine.REC_QUEUED;
+        if (slot.isRecording().get()) return ClipSlotStateMachine.RECORDING;
+        if (!slot.hasContent().get()) return ClipSlotStateMachine.EMPTY;
+        if (slot.isStopQueued().get()) return ClipSlotStateMachine.STOP_QUEUED;
+        if (slot.isPlaybackQueued().get()) return ClipSlotStateMachine.PLAY_QUEUED;
+        return slot.isPlaying().get() ? ClipSlotStateMachine.PLAYING : ClipSlotStateMachine.STOPPED;
+    }
+
+    /**
+     * Draws the clip states of a window the banks scroll to from the look-ahead cache,
+     * without waiting for the slot observers. Called with the expected position when
+     * a scroll is requested ({@link #predictViewport}) and with the actual one when Bitwig reports it.
+     * <p>
+     * Cells the cache doesn't know keep their state, the slot observers report the
+     * positions whose state differs from it.
+     *
+     * @param track project position of the first track of the window
+     * @param scene project position of the first scene of the window
+     */
+    public void showViewportFrom(int track, int scene) {
+        if (track == viewportTrack && scene == viewportScene) return;
+        viewportTrack = track;
+        viewportScene = scene;
+
+        ClipGrid grid = api.getClipGrid();
+        for (int cell = 0; cell < grid.getCells(); cell++) {
+            int state = api.getLookAheadCache().stateAt(track + grid.trackOf(cell), scene + grid.sceneOf(cell));
+            if (state != LookAheadCache.UNKNOWN) {
+                api.getHostState().seedSlot(cell, state);
+            }
+        }
+    }
+
+    /**
+     * Redraws the clip pads after the grid view moved, from the known cell states.
+     */
+    public void showGridView() {
+        ClipGrid grid = api.getClipGrid();
+        for (int pad : ClipGrid.getClipPads()) {
+            if (grid.cellOfPad(pad) == ClipGrid.NO_CELL) {
+                api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, pad, OFF);
+            }
+        }
+        api.getHostState().invalidateSlots();
+    }
+
+    @Override
+    public void renderSlot(int cell, int state) {
+        int pad = api.getClipGrid().padOfCell(cell);
+        if (pad == ClipGrid.NO_PAD) return; // outside the view, shown when the view gets there
+
+        // Use PERF-aware LED update method for hybrid mode compatibility
+        api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, pad, SLOT_LED_STATES[state]);
+    }
+
+    @Override
+    public void renderMute(boolean muted) {
+        api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, Page.PAD_INDICES.MUTE_PAD, muted ?
+                Page.CHANNEL_LED_STATES.MUTED
+                : Page.CHANNEL_LED_STATES.UNMUTED
+        );
+    }
+
+    @Override
+    public void renderArm(boolean armed) {
+        api.getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, Page.PAD_INDICES.ARM_PAD, armed ?
+                Page.CHANNEL_LED_STATES.ARMED
+                : Page.CHANNEL_LED_STATES.UNARMED
+        );
+    }
+
+    @Override
+    public void renderBwsSelection(int bwsSlot, String trackName) {
+        BwsTrackDiscoveryService bwsService = api.getBwsTrackDiscoveryService();
+        if (bwsService != null) {
+            bwsService.renderSelection(bwsSlot, trackName);
         }
     }
 
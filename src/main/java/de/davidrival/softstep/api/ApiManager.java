@@ -9,9 +9,6 @@ import de.davidrival.softstep.debug.DebugLogger;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import static de.davidrival.softstep.controller.Page.CLIP_LED_STATES.OFF;
 
 @Getter
@@ -19,6 +16,7 @@ import static de.davidrival.softstep.controller.Page.CLIP_LED_STATES.OFF;
 public class ApiManager {
 
     public static final int AMOUNT_USER_CONTROLS = 20; // 10 pads + 10 longpress (expression pedal disabled)
+    /** Default size of the clip grid, the size is set in the preferences */
     public static final int NUM_TRACKS = 1;
     public static final int NUM_SENDS = 0;
     public static final int NUM_SCENES = 4;
@@ -30,8 +28,23 @@ public class ApiManager {
     private final ApiHostToController apiFromHost;
     private final ApiControllerToHost apiToHost;
 
-    private Timer timer;
-    private Timer timer2;
+    /** All delayed and repeating work runs on this scheduler on the host thread */
+    private final HostScheduler scheduler;
+
+    /** Subscribes the host values the current page needs */
+    private final SubscriptionManager subscriptions;
+
+    /** Host state written by the observers, rendered to the Softstep once per flush */
+    private final HostStateMirror hostState;
+
+    /** Tracks x scenes of clip slots and which of them the clip pads show */
+    private final ClipGrid clipGrid;
+
+    /** Clip states around the visible banks, drawn right away when they scroll */
+    private final LookAheadCache lookAheadCache;
+
+    /** Clip states of the first BWS tracks, drawn right away when cycling to one */
+    private final BwsClipCache bwsClipCache;
 
 
 
@@ -54,9 +67,13 @@ public class ApiManager {
 
         this.host = host;
         this.softstepController = softstepController;
+        this.scheduler = new HostScheduler(host);
+        this.subscriptions = new SubscriptionManager(scheduler);
+        this.clipGrid = new ClipGrid(padConfigManager.getGridTracks(), padConfigManager.getGridScenes());
+        this.hostState = new HostStateMirror(clipGrid.getCells(), host::requestFlush);
 
         this.userControls = host.createUserControls(AMOUNT_USER_CONTROLS);
-        this.trackBank = host.createMainTrackBank(NUM_TRACKS, NUM_SENDS, NUM_SCENES);
+        this.trackBank = host.createMainTrackBank(clipGrid.getTracks(), NUM_SENDS, clipGrid.getScenes());
         this.trackCurser = host.
                 createCursorTrack("SOFTSTEP_CURSER_TRACK"
                         , "softstep curster"
@@ -65,6 +82,10 @@ public class ApiManager {
                         ,true
                 ) ;
         this.sceneBank = trackBank.sceneBank();
+        this.sceneBank.canScrollForwards().markInterested();
+        this.sceneBank.canScrollBackwards().markInterested();
+        this.trackBank.canScrollForwards().markInterested();
+        this.trackBank.canScrollBackwards().markInterested();
         this.trackBank.setShouldShowClipLauncherFeedback(SHOW_CLIP_LAUNCHER_FEEDBACK);
         this.track = trackBank.getItemAt(0);
 
@@ -72,6 +93,9 @@ public class ApiManager {
 
         this.slotBank = track.clipLauncherSlotBank();
 
+        this.lookAheadCache = new LookAheadCache(host, scheduler, clipGrid, subscriptions);
+        this.bwsClipCache = new BwsClipCache(host, scheduler, clipGrid.getScenes()
+                , padConfigManager.isGroupAwareBwsDiscovery(), subscriptions);
         this.apiFromHost = new ApiHostToController(this);
         this.apiToHost = new ApiControllerToHost(this);
 
@@ -85,22 +109,20 @@ public class ApiManager {
         // run1stClipCheckTask();
         
         // Initialize BWS Track Discovery Service
-        this.bwsTrackDiscoveryService = new BwsTrackDiscoveryService(host, padConfigManager);
+        this.bwsTrackDiscoveryService = new BwsTrackDiscoveryService(host, scheduler, hostState, bwsClipCache
+                , subscriptions, padConfigManager);
+        this.bwsTrackDiscoveryService.setCycleCallback(apiFromHost::showBwsTrack);
     }
 
     private void run1stClipCheckTask() {
-        timer2 = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
+        scheduler.scheduleRepeating(() -> {
                     ClipLauncherSlot clipLauncherSlot = getSlotBank().getItemAt(0);
                 if ( !clipLauncherSlot.hasContent().get() ){
 //                    getSoftstepController().p(">>> running special cleanup ");
                     // Use PERF-aware LED update method for hybrid mode compatibility
                     getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, 0, OFF);
                     }
-            }
-        }, 1000, CLIPS_CONTENT_CLEANUP_PERIOD);
+        }, 1000, CLIPS_CONTENT_CLEANUP_PERIOD, HostScheduler.FOREVER);
     }
 
     /**
@@ -108,11 +130,8 @@ public class ApiManager {
      * OFF LED at the specific point. This is a fix or sometimes LED get Stuck
      */
     private void runClipCleanupTaskEach() {
-        timer = new Timer();
         int size = getSlotBank().getSizeOfBank();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
+        scheduler.scheduleRepeating(() -> {
 //                getSoftstepController().p(">>> running cleanup :-)");
                 for (int i = 0; i < size; i++) {
                     ClipLauncherSlot clipLauncherSlot = getSlotBank().getItemAt(i);
@@ -121,26 +140,16 @@ public class ApiManager {
                         getSoftstepController().updateLedStatesForPerfMode(Page.CLIP, i, OFF);
                     }
                 }
-
-            }
-        }, 5000, CLIPS_CONTENT_CLEANUP_PERIOD);
+        }, 5000, CLIPS_CONTENT_CLEANUP_PERIOD, HostScheduler.FOREVER);
     }
 
     private void runPageCleanUpTask() {
-        timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                getSoftstepController().display();
-            }
-        }, 5000, CLIPS_CONTENT_CLEANUP_PERIOD);
+        scheduler.scheduleRepeating(() -> getSoftstepController().display()
+                , 5000, CLIPS_CONTENT_CLEANUP_PERIOD, HostScheduler.FOREVER);
     }
 
     public void exit() {
-        timer.cancel();
-        timer=null;
-        timer2.cancel();
-        timer2=null;
+        scheduler.cancelAll();
     }
     
     public SoftstepController getSoftstepController() {
@@ -0,0 +1,136 @@
+package de.davidrival.softstep.api;
+
+import com.bitwig.extension.controller.api.ClipLauncherSlotBank;
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.bitwig.extension.controller.api.TrackBank;
+
+import java.util.Arrays;
+
+/**
+ * Clip states of the tracks tagged with the first BWS slots, so cycling to such a track can draw its
+ * clip pads right away instead of after the cursor-following bank reported the new track.
+ * <p>
+ * Every cached slot has a hidden one track bank which the discovery keeps on the tagged track, its
+ * scene bank follows the visible one. The states of all banks are packed into 4 bits per cell,
+ * cell = slot * scenes + scene. Like in the {@link LookAheadCache} a bank which moved keeps the
+ * states of its old track until Bitwig had time to report the differences, until then the slot
+ * isn't handed out. A slot which is released and assigned to the same track again, e.g. when the
+ * track is renamed, finds its bank still there and keeps the states.
+ * <p>
+ * Only used on the host thread.
+ */
+public class BwsClipCache {
+
+    /** BWS slots with a cache, the slots which have their own LED color */
+    public static final int CACHED_SLOTS = 6;
+    public static final int NO_POSITION = -1;
+    /** Returned for slots the cache doesn't know */
+    public static final int UNKNOWN = -1;
+
+    /** Time Bitwig gets to report the track a bank moved to */
+    private static final int SETTLE_MS = 250;
+    private static final int BITS_PER_STATE = 4;
+    private static final int STATES_PER_WORD = Long.SIZE / BITS_PER_STATE;
+    private static final long STATE_MASK = (1L << BITS_PER_STATE) - 1;
+
+    private final TrackBank[] banks = new TrackBank[CACHED_SLOTS];
+    private final HostScheduler scheduler;
+    private final int scenes;
+    private final long[] states;
+    private final int[] positions = new int[CACHED_SLOTS];
+    /** Where the banks were scrolled to, they stay there when their slot is released */
+    private final int[] bankPositions = new int[CACHED_SLOTS];
+    private final long[] settledAt = new long[CACHED_SLOTS];
+    private int firstScene = 0;
+
+    /**
+     * @param flatTrackList true if the discovery positions are in the flat track list
+     */
+    public BwsClipCache(ControllerHost host, HostScheduler scheduler, int scenes, boolean flatTrackList
+            , SubscriptionManager subscriptions) {
+        this.scheduler = scheduler;
+        this.scenes = scenes;
+        this.states = new long[(CACHED_SLOTS * scenes + STATES_PER_WORD - 1) / STATES_PER_WORD];
+        Arrays.fill(positions, NO_POSITION);
+        Arrays.fill(bankPositions, NO_POSITION);
+
+        for (int s = 0; s < CACHED_SLOTS; s++) {
+            final int bwsSlot = s;
+            banks[s] = flatTrackList
+                    ? host.createTrackBank(1, 0, scenes, true)
+                    : host.createMainTrackBank(1, 0, scenes);
+            ClipLauncherSlotBank slots = banks[s].getItemAt(0).clipLauncherSlotBank();
+            slots.addHasContentObserver((scene, hasContent) ->
+                    onEvent(bwsSlot, scene, ClipSlotStateMachine.contentEvent(hasContent)));
+            slots.addPlaybackStateObserver((scene, playbackState, isQueued) ->
+                    onEvent(bwsSlot, scene, ClipSlotStateMachine.playbackEvent(playbackState, isQueued)));
+        }
+        // only cycling on the PERF page draws from the cache
+        subscriptions.register(SubscriptionManager.BWS_TRACKS, banks);
+        subscriptions.onResubscribed(SubscriptionManager.BWS_TRACKS, this::resync);
+    }
+
+    /**
+     * Changes while the banks were unsubscribed are missing, no slot is handed out until Bitwig resent them.
+     */
+    private void resync() {
+        Arrays.fill(settledAt, scheduler.now() + SETTLE_MS);
+    }
+
+    private void onEvent(int bwsSlot, int scene, int event) {
+        if (event == ClipSlotStateMachine.NO_EVENT || scene >= scenes) return;
+
+        int cell = bwsSlot * scenes + scene;
+        setState(cell, ClipSlotStateMachine.next(getState(cell), event));
+    }
+
+    /**
+     * Moves the bank of a slot to the track which has the tag, called when the discovery changed the slot.
+     *
+     * @param position project position of the track or {@link #NO_POSITION} if the slot has no cacheable track
+     */
+    public void track(int bwsSlot, int position) {
+        if (bwsSlot < 0 || bwsSlot >= CACHED_SLOTS || positions[bwsSlot] == position) return;
+
+        positions[bwsSlot] = position;
+        if (position == NO_POSITION || position == bankPositions[bwsSlot]) return;
+
+        bankPositions[bwsSlot] = position;
+        banks[bwsSlot].scrollPosition().set(position);
+        settledAt[bwsSlot] = scheduler.now() + SETTLE_MS;
+    }
+
+    /**
+     * Keeps the scenes of all banks on the visible scenes, called when the visible scene bank scrolled.
+     */
+    public void followScenes(int firstScene) {
+        if (firstScene == this.firstScene) return;
+        this.firstScene = firstScene;
+
+        long now = scheduler.now();
+        for (int s = 0; s < CACHED_SLOTS; s++) {
+            banks[s].sceneBank().scrollPosition().set(firstScene);
+            settledAt[s] = now + SETTLE_MS;
+        }
+    }
+
+    /**
+     * @param scene scene within the visible scene bank
+     * @return the clip state of the track tagged with the slot or {@link #UNKNOWN}
+     */
+    public int stateAt(int bwsSlot, int scene) {
+        if (bwsSlot < 0 || bwsSlot >= CACHED_SLOTS || scene < 0 || scene >= scenes) return UNKNOWN;
+        if (positions[bwsSlot] == NO_POSITION || scheduler.now() < settledAt[bwsSlot]) return UNKNOWN;
+        return getState(bwsSlot * scenes + scene);
+    }
+
+    private int getState(int cell) {
+        return (int) ((states[cell / STATES_PER_WORD] >>> (cell % STATES_PER_WORD * BITS_PER_STATE)) & STATE_MASK);
+    }
+
+    private void setState(int cell, int state) {
+        int word = cell / STATES_PER_WORD;
+        int shift = cell % STATES_PER_WORD * BITS_PER_STATE;
+        states[word] = (states[word] & ~(STATE_MASK << shift)) | ((long) state << shift);
+    }
+}
@@ -0,0 +1,149 @@
+package de.davidrival.softstep.api;
+
+import java.util.Arrays;
+
+/**
+ * Grid of clip launcher slots: several tracks of the track bank times the scenes of the scene bank.
+ * <p>
+ * Cells are numbered track by track, cell = track * scenes + scene. The state of every cell is kept
+ * in the {@link HostStateMirror}, the clip pads show a view of the grid through a pad to cell table.
+ * With more cells than clip pads the view moves scene-wise through the grid, which costs a table
+ * rebuild and a redraw of the known cell states, no round trip to Bitwig.
+ * <p>
+ * The view is laid out track by track: with 2 tracks the first two clip pads show scenes of the
+ * first track, the other two the same scenes of the second track.
+ */
+public class ClipGrid {
+
+    /** Pads which launch clips on the CLIP page, in the order they show the view */
+    private static final int[] CLIP_PADS = {0, 1, 2, 3};
+    private static final int NUM_PADS = 10;
+
+    /** Every track of the grid gets at least one clip pad */
+    public static final int MAX_TRACKS = CLIP_PADS.length;
+    public static final int MAX_SCENES = 10;
+
+    public static final int NO_CELL = -1;
+    public static final int NO_PAD = -1;
+
+    private final int tracks;
+    private final int scenes;
+    /** Tracks and scenes per track the view shows */
+    private final int viewTracks;
+    private final int viewScenes;
+
+    private final int[] padToCell = new int[NUM_PADS];
+    private final int[] cellToPad;
+    private int padMask = 0;
+    private int viewScene = 0;
+
+    public ClipGrid(int tracks, int scenes) {
+        this.tracks = Math.max(1, Math.min(MAX_TRACKS, tracks));
+        this.scenes = Math.max(1, Math.min(MAX_SCENES, scenes));
+        this.viewTracks = Math.min(this.tracks, CLIP_PADS.length);
+        this.viewScenes = Math.min(this.scenes, CLIP_PADS.length / viewTracks);
+        this.cellToPad = new int[this.tracks * this.scenes];
+        buildTable();
+    }
+
+    public static boolean isClipPad(int padIndex) {
+        for (int pad : CLIP_PADS) {
+            if (pad == padIndex) return true;
+        }
+        return false;
+    }
+
+    public static int[] getClipPads() {
+        return CLIP_PADS.clone();
+    }
+
+    public int getTracks() {
+        return tracks;
+    }
+
+    public int getScenes() {
+        return scenes;
+    }
+
+    public int getCells() {
+        return cellToPad.length;
+    }
+
+    public int cellOf(int track, int scene) {
+        return track * scenes + scene;
+    }
+
+    public int trackOf(int cell) {
+        return cell / scenes;
+    }
+
+    public int sceneOf(int cell) {
+        return cell % scenes;
+    }
+
+    /**
+     * @return cell the pad shows or {@link #NO_CELL}
+     */
+    public int cellOfPad(int padIndex) {
+        return padIndex < 0 || padIndex >= NUM_PADS ? NO_CELL : padToCell[padIndex];
+    }
+
+    /**
+     * @return pad which shows the cell or {@link #NO_PAD} if the cell is outside the view
+     */
+    public int padOfCell(int cell) {
+        return cell < 0 || cell >= cellToPad.length ? NO_PAD : cellToPad[cell];
+    }
+
+    /**
+     * @return bit per pad which shows a cell
+     */
+    public int getPadMask() {
+        return padMask;
+    }
+
+    /**
+     * Moves the view by its width through the scenes of the grid.
+     *
+     * @param direction 1 = next scenes, -1 = previous scenes
+     * @return false if the view is already at that end of the grid
+     */
+    public boolean scrollView(int direction) {
+        int next = viewScene + Integer.signum(direction) * viewScenes;
+        if (next < 0 || next >= scenes) return false;
+
+        viewScene = next;
+        buildTable();
+        return true;
+    }
+
+    /**
+     * Moves the view to the first or last scenes of the grid, e.g. after the scene bank scrolled.
+     *
+     * @param first true for the first scenes
+     * @return false if the view is there already
+     */
+    public boolean moveViewToEnd(boolean first) {
+        int target = first ? 0 : ((scenes - 1) / viewScenes) * viewScenes;
+        if (viewScene == target) return false;
+
+        viewScene = target;
+        buildTable();
+        return true;
+    }
+
+    private void buildTable() {
+        Arrays.fill(padToCell, NO_CELL);
+        Arrays.fill(cellToPad, NO_PAD);
+        padMask = 0;
+        for (int i = 0; i < viewTracks * viewScenes; i++) {
+            int scene = viewScene + i % viewScenes;
+            if (scene >= scenes) continue; // the last view of the grid can be partial
+            int cell = cellOf(i / viewScenes, scene);
+            int pad = CLIP_PADS[i];
+            padToCell[pad] = cell;
+            cellToPad[cell] = pad;
+            padMask |= 1 << pad;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package de.davidrival.softstep.api;
+
+import java.util.Arrays;
+
+/**
+ * State of the clip launcher slots as the LEDs show it, driven by the content and playback
+ * callbacks of the slot bank.
+ * <p>
+ * Bitwig reports a single action as a burst of callbacks, recording into an empty slot e.g. is
+ * "recording queued", "recording queued off", "content", "recording". Each callback is one
+ * lookup in the transition table, the LEDs are only told about a slot in {@link #settle} and only
+ * if it ended up in a state which looks different from what was emitted before. Settling once per
+ * host flush collapses every burst into its final state.
+ * <p>
+ * The table also keeps stale playback callbacks from lighting up a slot which has lost its
+ * content, e.g. "content off" followed by "recording off" when a recording clip is deleted.
+ * <p>
+ * Only used on the host thread.
+ */
+public class ClipSlotStateMachine {
+
+    // States, each one is a different LED
+    public static final int EMPTY = 0;
+    public static final int STOPPED = 1;
+    public static final int STOP_QUEUED = 2;
+    public static final int PLAYING = 3;
+    public static final int PLAY_QUEUED = 4;
+    public static final int RECORDING = 5;
+    public static final int REC_QUEUED = 6;
+    public static final int NUM_STATES = 7;
+
+    // Events, the playback events are ordered like the states of the playback state observer
+    public static final int EVENT_CONTENT_ON = 0;
+    public static final int EVENT_CONTENT_OFF = 1;
+    public static final int EVENT_STOPPED = 2;
+    public static final int EVENT_STOP_QUEUED = 3;
+    public static final int EVENT_PLAYING = 4;
+    public static final int EVENT_PLAY_QUEUED = 5;
+    public static final int EVENT_RECORDING = 6;
+    public static final int EVENT_REC_QUEUED = 7;
+    public static final int NUM_EVENTS = 8;
+
+    /** Returned by {@link #playbackEvent} for unknown playback states */
+    public static final int NO_EVENT = -1;
+
+    private static final int E = EMPTY, S = STOPPED, SQ = STOP_QUEUED, P = PLAYING
+            , PQ = PLAY_QUEUED, R = RECORDING, RQ = REC_QUEUED;
+
+    /** Next state by [state * NUM_EVENTS + event] */
+    private static final byte[] TRANSITIONS = {
+            //         content on, off, stopped, stop q, playing, play q, recording, rec q
+            /* E  */ S,  E, E, E,  P, PQ, R, RQ,
+            /* S  */ S,  E, S, SQ, P, PQ, R, RQ,
+            /* SQ */ SQ, E, S, SQ, P, PQ, R, RQ,
+            /* P  */ P,  E, S, SQ, P, PQ, R, RQ,
+            /* PQ */ PQ, E, S, SQ, P, PQ, R, RQ,
+            /* R  */ R,  E, S, SQ, P, PQ, R, RQ,
+            /* RQ */ RQ, E, S, SQ, P, PQ, R, RQ,
+    };
+
+    /**
+     * Receives the slots which settled into a new state.
+     */
+    public interface Listener {
+        void onSlotSettled(int slot, int state);
+    }
+
+    /** 4 bit state per slot, 16 slots per word */
+    private static final int STATE_BITS = 4;
+    private static final int SLOTS_PER_WORD = Long.SIZE / STATE_BITS;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    /** Emitted state of slots which weren't emitted yet, no state has this value */
+    private static final long UNKNOWN_STATES = -1L;
+
+    private final int slots;
+    private final long[] states;
+    private final long[] emitted;
+    /** Bit per slot which got an event since the last settle */
+    private final long[] dirty;
+    private boolean anyDirty = false;
+
+    /**
+     * @param slots number of slots, e.g. all cells of a clip grid
+     */
+    public ClipSlotStateMachine(int slots) {
+        if (slots < 0) {
+            throw new IllegalArgumentException("Unsupported number of slots: " + slots);
+        }
+        this.slots = slots;
+        int words = (slots + SLOTS_PER_WORD - 1) / SLOTS_PER_WORD;
+        this.states = new long[words];
+        this.emitted = new long[words];
+        this.dirty = new long[(slots + Long.SIZE - 1) / Long.SIZE];
+        Arrays.fill(emitted, UNKNOWN_STATES);
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * @param playbackState state as reported by the playback state observer, 0 = stopped, 1 = playing, 2 = recording
+     * @return the event or {@link #NO_EVENT} for unknown states
+     */
+    public static int playbackEvent(int playbackState, boolean isQueued) {
+        if (playbackState < 0 || playbackState > 2) {
+            return NO_EVENT;
+        }
+        return EVENT_STOPPED + playbackState * 2 + (isQueued ? 1 : 0);
+    }
+
+    public static int contentEvent(boolean hasContent) {
+        return hasContent ? EVENT_CONTENT_ON : EVENT_CONTENT_OFF;
+    }
+
+    /**
+     * @return the state a slot in the given state is in after the event
+     */
+    public static int next(int state, int event) {
+        return TRANSITIONS[state * NUM_EVENTS + event];
+    }
+
+    /**
+     * Applies an event, nothing is emitted until {@link #settle}.
+     */
+    public void onEvent(int slot, int event) {
+        if (slot < 0 || slot >= slots || event < 0 || event >= NUM_EVENTS) return;
+
+        setState(states, slot, next(getState(slot), event));
+        markDirty(slot);
+    }
+
+    /**
+     * Sets the state of a slot which is known from elsewhere, e.g. a cache of the slots a scroll
+     * brings into view. Later events continue from this state.
+     */
+    public void seed(int slot, int state) {
+        if (slot < 0 || slot >= slots || state < 0 || state >= NUM_STATES) return;
+
+        setState(states, slot, state);
+        markDirty(slot);
+    }
+
+    private void markDirty(int slot) {
+        dirty[slot / Long.SIZE] |= 1L << slot;
+        anyDirty = true;
+    }
+
+    public int getState(int slot) {
+        return stateOf(states, slot);
+    }
+
+    public boolean isSettled() {
+        return !anyDirty;
+    }
+
+    /**
+     * @return true if the slot got an event since the last {@link #settle}
+     */
+    boolean isDirty(int slot) {
+        return (dirty[slot / Long.SIZE] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Emits every slot whose state looks different from what was emitted before.
+     * Only slots which got events are looked at, so large grids with little activity stay cheap.
+     *
+     * @return number of slots emitted
+     */
+    public int settle(Listener listener) {
+        if (!anyDirty) return 0;
+
+        int count = 0;
+        for (int word = 0; word < dirty.length; word++) {
+            for (long m = dirty[word]; m != 0; m &= m - 1) {
+                int slot = word * Long.SIZE + Long.numberOfTrailingZeros(m);
+                int state = stateOf(states, slot);
+                if (state != stateOf(emitted, slot)) {
+                    setState(emitted, slot, state);
+                    listener.onSlotSettled(slot, state);
+                    count++;
+                }
+            }
+            dirty[word] = 0;
+        }
+        anyDirty = false;
+        return count;
+    }
+
+    /**
+     * Emits all slots on the next {@link #settle}, e.g. when other slots are shown on the pads.
+     */
+    public void invalidate() {
+        Arrays.fill(emitted, UNKNOWN_STATES);
+        for (int word = 0; word < dirty.length; word++) {
+            int slotsInWord = Math.min(Long.SIZE, slots - word * Long.SIZE);
+            dirty[word] = slotsInWord == Long.SIZE ? -1L : (1L << slotsInWord) - 1;
+        }
+        anyDirty = slots > 0;
+    }
+
+    private static int stateOf(long[] packed, int slot) {
+        return (int) ((packed[slot / SLOTS_PER_WORD] >>> ((slot % SLOTS_PER_WORD) * STATE_BITS)) & STATE_MASK);
+    }
+
+    private static void setState(long[] packed, int slot, int state) {
+        int shift = (slot % SLOTS_PER_WORD) * STATE_BITS;
+        int word = slot / SLOTS_PER_WORD;
+        packed[word] = (packed[word] & ~(STATE_MASK << shift)) | ((long) state << shift);
+    }
+}
@@ -0,0 +1,178 @@
+package de.davidrival.softstep.api;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Single scheduler for all delayed and repeating work of the extension.
+ * <p>
+ * Tasks are kept in a deadline heap and run on the host thread: the scheduler only ever
+ * arms one {@link ControllerHost#scheduleTask} for the earliest deadline and drains everything
+ * which is due when it wakes up. No threads are created and tasks can call the Bitwig API
+ * directly. Tasks can be cancelled by their handle; tasks scheduled with a key replace a
+ * pending task with the same key, so bursts of requests collapse into one run.
+ * <p>
+ * Must only be used from the host thread.
+ */
+public class HostScheduler {
+
+    /** repetitions value for tasks which repeat until they are cancelled */
+    public static final int FOREVER = 0;
+
+    /**
+     * Handle of a scheduled task
+     */
+    public final class Task {
+        private final Runnable action;
+        private final Object key;
+        private final int periodMs;
+        private final long sequence;
+        private long deadline;
+        private int remainingRuns;
+        private boolean cancelled = false;
+
+        private Task(Runnable action, Object key, long deadline, int periodMs, int repetitions) {
+            this.action = action;
+            this.key = key;
+            this.deadline = deadline;
+            this.periodMs = periodMs;
+            this.remainingRuns = repetitions;
+            this.sequence = nextSequence++;
+        }
+
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            if (key != null) {
+                coalesced.remove(key, this);
+            }
+        }
+
+        public boolean isActive() {
+            return !cancelled;
+        }
+    }
+
+    private final ControllerHost host;
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>((a, b) -> a.deadline != b.deadline
+            ? Long.compare(a.deadline, b.deadline)
+            : Long.compare(a.sequence, b.sequence));
+
+    private final Map<Object, Task> coalesced = new HashMap<>();
+
+    /** Deadline the host wake up is currently armed for */
+    private long armedDeadline = Long.MAX_VALUE;
+    private long nextSequence = 0;
+
+    public HostScheduler(ControllerHost host) {
+        this.host = host;
+    }
+
+    /**
+     * Runs the action once after the delay.
+     */
+    public Task schedule(Runnable action, int delayMs) {
+        return add(new Task(action, null, now() + delayMs, 0, 1));
+    }
+
+    /**
+     * Runs the action repeatedly.
+     *
+     * @param initialDelayMs delay before the first run
+     * @param periodMs delay between the runs
+     * @param repetitions number of runs, {@link #FOREVER} to repeat until cancelled
+     */
+    public Task scheduleRepeating(Runnable action, int initialDelayMs, int periodMs, int repetitions) {
+        return add(new Task(action, null, now() + initialDelayMs, Math.max(1, periodMs), repetitions));
+    }
+
+    /**
+     * Runs the action once after the delay. A pending task with the same key is cancelled,
+     * so only the latest of several requests within the delay is run.
+     */
+    public Task scheduleCoalesced(Object key, Runnable action, int delayMs) {
+        Task pending = coalesced.get(key);
+        if (pending != null) {
+            pending.cancel();
+        }
+        Task task = new Task(action, key, now() + delayMs, 0, 1);
+        coalesced.put(key, task);
+        return add(task);
+    }
+
+    /**
+     * Cancels everything, used on exit of the extension.
+     */
+    public void cancelAll() {
+        for (Task task : tasks) {
+            task.cancelled = true;
+        }
+        tasks.clear();
+        coalesced.clear();
+    }
+
+    private Task add(Task task) {
+        tasks.add(task);
+        arm();
+        return task;
+    }
+
+    private void arm() {
+        // throw away cancelled tasks at the head, they don't need a wake up
+        while (!tasks.isEmpty() && tasks.peek().cancelled) {
+            tasks.poll();
+        }
+        if (tasks.isEmpty()) return;
+
+        long deadline = tasks.peek().deadline;
+        if (deadline >= armedDeadline) return;
+
+        armedDeadline = deadline;
+        host.scheduleTask(() -> onWakeUp(deadline), Math.max(0, deadline - now()));
+    }
+
+    private void onWakeUp(long deadline) {
+        if (deadline == armedDeadline) {
+            armedDeadline = Long.MAX_VALUE;
+        }
+
+        long now = now();
+        try {
+            while (!tasks.isEmpty() && tasks.peek().deadline <= now) {
+                Task task = tasks.poll();
+                if (task.cancelled) continue;
+
+                boolean lastRun = task.remainingRuns != FOREVER && --task.remainingRuns == 0;
+                if (lastRun) {
+                    task.cancel();
+                }
+
+                try {
+                    task.action.run();
+                } catch (RuntimeException e) {
+                    // one failing task must not take the others down with it
+                    host.errorln("HostScheduler: task failed: " + e);
+                } finally {
+                    if (!lastRun && !task.cancelled) {
+                        task.deadline += task.periodMs;
+                        tasks.add(task);
+                    }
+                }
+            }
+        } finally {
+            // nothing else wakes the scheduler up again
+            arm();
+        }
+    }
+
+    /**
+     * @return the current time in ms on the clock of the deadlines, tests can run the scheduler on their own clock
+     */
+    public long now() {
+        return System.currentTimeMillis();
+    }
+}
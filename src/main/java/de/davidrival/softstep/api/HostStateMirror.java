@@ -0,0 +1,160 @@
+package de.davidrival.softstep.api;
+
+import java.util.Objects;
+
+/**
+ * Mirror of the host state the Softstep shows: the cells of the {@link ClipGrid}, mute and arm of the cursor track and
+ * the selected BWS track.
+ * <p>
+ * Bitwig observers only write into the mirror and ask for a flush, {@link #render} then hands what
+ * changed to the renderer once per flush. Observer storms, e.g. on project load or when the cursor
+ * track moves to another track with all its slots, end up as one render with the final state.
+ * Values are kept in primitives with a bit per changed item.
+ * <p>
+ * Only used on the host thread.
+ */
+public class HostStateMirror {
+
+    /** BWS slot when the selected track is no BWS track */
+    public static final int NO_BWS_TRACK = -2;
+    /** BWS slot before the first selection is known */
+    public static final int UNKNOWN_BWS_SLOT = Integer.MIN_VALUE;
+
+    private static final int MUTE_BIT = 1;
+    private static final int ARM_BIT = 1 << 1;
+    private static final int BWS_BIT = 1 << 2;
+
+    /**
+     * Gets the parts of the mirror which changed since the last render.
+     */
+    public interface Renderer {
+        /**
+         * @param slot cell of the {@link ClipGrid}
+         * @param state one of the {@link ClipSlotStateMachine} states
+         */
+        void renderSlot(int slot, int state);
+
+        void renderMute(boolean muted);
+
+        void renderArm(boolean armed);
+
+        /**
+         * @param bwsSlot selected BWS slot or {@link #NO_BWS_TRACK}
+         * @param trackName name of the selected BWS track without its tag, null for non-BWS tracks
+         */
+        void renderBwsSelection(int bwsSlot, String trackName);
+    }
+
+    private final ClipSlotStateMachine clipSlots;
+    private final Runnable flushRequester;
+
+    private boolean muted = false;
+    private boolean armed = false;
+    private int bwsSlot = UNKNOWN_BWS_SLOT;
+    private String bwsTrackName = null;
+
+    /** Items which changed since the last render, the first render shows everything */
+    private int changedMask = MUTE_BIT | ARM_BIT;
+
+    public HostStateMirror(int slots, Runnable flushRequester) {
+        this.clipSlots = new ClipSlotStateMachine(slots);
+        this.flushRequester = flushRequester;
+    }
+
+    /**
+     * @param event one of the {@link ClipSlotStateMachine} events
+     */
+    public void onSlotEvent(int slot, int event) {
+        clipSlots.onEvent(slot, event);
+        requestFlush();
+    }
+
+    /**
+     * Sets the state of a slot without waiting for its observers, see {@link ClipSlotStateMachine#seed}.
+     */
+    public void seedSlot(int slot, int state) {
+        clipSlots.seed(slot, state);
+        requestFlush();
+    }
+
+    /**
+     * Renders all slots again on the next flush, e.g. when other slots are shown on the pads.
+     */
+    public void invalidateSlots() {
+        clipSlots.invalidate();
+        requestFlush();
+    }
+
+    public void setMuted(boolean muted) {
+        if (this.muted != muted) {
+            this.muted = muted;
+            changed(MUTE_BIT);
+        }
+    }
+
+    public void setArmed(boolean armed) {
+        if (this.armed != armed) {
+            this.armed = armed;
+            changed(ARM_BIT);
+        }
+    }
+
+    public void setBwsSelection(int bwsSlot, String trackName) {
+        if (this.bwsSlot != bwsSlot || !Objects.equals(bwsTrackName, trackName)) {
+            this.bwsSlot = bwsSlot;
+            this.bwsTrackName = trackName;
+            changed(BWS_BIT);
+        }
+    }
+
+    public boolean isMuted() {
+        return muted;
+    }
+
+    public boolean isArmed() {
+        return armed;
+    }
+
+    public int getBwsSlot() {
+        return bwsSlot;
+    }
+
+    public int getSlotState(int slot) {
+        return clipSlots.getState(slot);
+    }
+
+    public boolean hasChanges() {
+        return changedMask != 0 || !clipSlots.isSettled();
+    }
+
+    /**
+     * Hands everything which changed since the last render to the renderer, called once per flush.
+     */
+    public void render(Renderer renderer) {
+        if (!hasChanges()) return;
+
+        int changed = changedMask;
+        changedMask = 0;
+        clipSlots.settle(renderer::renderSlot);
+        if ((changed & MUTE_BIT) != 0) {
+            renderer.renderMute(muted);
+        }
+        if ((changed & ARM_BIT) != 0) {
+            renderer.renderArm(armed);
+        }
+        if ((changed & BWS_BIT) != 0) {
+            renderer.renderBwsSelection(bwsSlot, bwsTrackName);
+        }
+    }
+
+    private void changed(int bit) {
+        changedMask |= bit;
+        requestFlush();
+    }
+
+    private void requestFlush() {
+        if (flushRequester != null) {
+            flushRequester.run();
+        }
+    }
+}
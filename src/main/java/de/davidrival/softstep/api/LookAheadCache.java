@@ -0,0 +1,163 @@
+package de.davidrival.softstep.api;
+
+import com.bitwig.extension.controller.api.ClipLauncherSlotBank;
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.bitwig.extension.controller.api.TrackBank;
+
+import java.util.Arrays;
+
+/**
+ * Clip states of the tracks and scenes around the visible clip grid, so a scroll can be drawn
+ * right away instead of after Bitwig reported the new window.
+ * <p>
+ * A hidden track bank spans {@link #TRACK_MARGIN} tracks and {@link #SCENE_PAGES} pages of scenes
+ * on each side of the visible banks and follows their scroll position. Its observers feed the same
+ * transitions as the visible slots. The cache is indexed by bank position like Bitwig reports it:
+ * when the hidden bank scrolls the states move along, the positions which come into the bank keep
+ * their old state, as Bitwig only reports the positions whose value differs from it. Until those
+ * reports had time to arrive these positions aren't handed out.
+ * <p>
+ * Bitwig might keep the bank from scrolling as far as requested, e.g. at the end of the project.
+ * The states belong to where the bank is, so the scroll positions Bitwig reports have the last word.
+ * <p>
+ * Only used on the host thread.
+ */
+public class LookAheadCache {
+
+    public static final int TRACK_MARGIN = 1;
+    public static final int SCENE_PAGES = 1;
+    /** Returned for positions the cache doesn't know */
+    public static final int UNKNOWN = -1;
+
+    /** Time Bitwig gets to report the positions which scrolled into the hidden bank */
+    private static final int SETTLE_MS = 250;
+
+    private final TrackBank bank;
+    private final HostScheduler scheduler;
+    private final int tracks;
+    private final int scenes;
+    private final int trackMargin;
+    private final int sceneMargin;
+
+    /** State per bank position, cell = track * scenes + scene */
+    private final byte[] states;
+    /** Positions which came into the bank with the last scroll, trusted from settledAt on */
+    private final boolean[] scrolledIn;
+    private long settledAt = 0;
+
+    /** Project position of the first track and scene of the hidden bank */
+    private int firstTrack = 0;
+    private int firstScene = 0;
+
+    public LookAheadCache(ControllerHost host, HostScheduler scheduler, ClipGrid grid, SubscriptionManager subscriptions) {
+        this.scheduler = scheduler;
+        this.trackMargin = TRACK_MARGIN;
+        this.sceneMargin = grid.getScenes() * SCENE_PAGES;
+        this.tracks = grid.getTracks() + 2 * trackMargin;
+        this.scenes = grid.getScenes() + 2 * sceneMargin;
+        this.states = new byte[tracks * scenes];
+        this.scrolledIn = new boolean[tracks * scenes];
+
+        this.bank = host.createMainTrackBank(tracks, 0, scenes);
+        for (int t = 0; t < tracks; t++) {
+            final int track = t;
+            ClipLauncherSlotBank slots = bank.getItemAt(track).clipLauncherSlotBank();
+            slots.addHasContentObserver((scene, hasContent) ->
+                    onEvent(track, scene, ClipSlotStateMachine.contentEvent(hasContent)));
+            slots.addPlaybackStateObserver((scene, playbackState, isQueued) ->
+                    onEvent(track, scene, ClipSlotStateMachine.playbackEvent(playbackState, isQueued)));
+        }
+        bank.scrollPosition().markInterested();
+        bank.sceneBank().scrollPosition().markInterested();
+        bank.scrollPosition().addValueObserver(track -> onScrolled(track, firstScene));
+        bank.sceneBank().scrollPosition().addValueObserver(scene -> onScrolled(firstTrack, scene));
+        subscriptions.register(SubscriptionManager.CLIP_STATE, bank);
+        subscriptions.onResubscribed(SubscriptionManager.CLIP_STATE, this::resync);
+    }
+
+    /**
+     * Changes while the bank was unsubscribed are missing, no position is handed out until Bitwig resent them.
+     */
+    private void resync() {
+        Arrays.fill(scrolledIn, true);
+        settledAt = scheduler.now() + SETTLE_MS;
+    }
+
+    private void onEvent(int track, int scene, int event) {
+        if (event == ClipSlotStateMachine.NO_EVENT || scene >= scenes) return;
+
+        int cell = track * scenes + scene;
+        states[cell] = (byte) ClipSlotStateMachine.next(states[cell], event);
+        scrolledIn[cell] = false;
+    }
+
+    /**
+     * Keeps the hidden bank around the visible banks, called when they scrolled.
+     *
+     * @param visibleTrack project position of the first visible track
+     * @param visibleScene project position of the first visible scene
+     */
+    public void follow(int visibleTrack, int visibleScene) {
+        int track = Math.max(0, visibleTrack - trackMargin);
+        int scene = Math.max(0, visibleScene - sceneMargin);
+        if (track == firstTrack && scene == firstScene) return;
+
+        moveTo(track, scene);
+        bank.scrollPosition().set(track);
+        bank.sceneBank().scrollPosition().set(scene);
+    }
+
+    /**
+     * Bitwig reported where the bank is, which isn't where it was asked to scroll if it stopped short.
+     */
+    private void onScrolled(int track, int scene) {
+        if (track == firstTrack && scene == firstScene) return;
+
+        moveTo(track, scene);
+    }
+
+    private void moveTo(int track, int scene) {
+        shift(track - firstTrack, scene - firstScene);
+        firstTrack = track;
+        firstScene = scene;
+        settledAt = scheduler.now() + SETTLE_MS;
+    }
+
+    /**
+     * @param track project position of the track
+     * @param scene project position of the scene
+     * @return the clip state or {@link #UNKNOWN}
+     */
+    public int stateAt(int track, int scene) {
+        int t = track - firstTrack;
+        int s = scene - firstScene;
+        if (t < 0 || t >= tracks || s < 0 || s >= scenes) return UNKNOWN;
+
+        int cell = t * scenes + s;
+        if (scrolledIn[cell] && scheduler.now() < settledAt) return UNKNOWN;
+        return states[cell];
+    }
+
+    /**
+     * Moves the states to the positions they have after the bank scrolled by the deltas.
+     */
+    private void shift(int deltaTracks, int deltaScenes) {
+        byte[] old = states.clone();
+        boolean[] oldScrolledIn = scrolledIn.clone();
+        for (int t = 0; t < tracks; t++) {
+            for (int s = 0; s < scenes; s++) {
+                int fromTrack = t + deltaTracks;
+                int fromScene = s + deltaScenes;
+                int cell = t * scenes + s;
+                if (fromTrack >= 0 && fromTrack < tracks && fromScene >= 0 && fromScene < scenes) {
+                    states[cell] = old[fromTrack * scenes + fromScene];
+                    scrolledIn[cell] = oldScrolledIn[fromTrack * scenes + fromScene];
+                } else {
+                    // keeps the state of the position until Bitwig reports a difference
+                    states[cell] = old[cell];
+                    scrolledIn[cell] = true;
+                }
+            }
+        }
+    }
+}
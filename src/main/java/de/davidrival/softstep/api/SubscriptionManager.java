@@ -0,0 +1,107 @@
+package de.davidrival.softstep.api;
+
+import com.bitwig.extension.controller.api.Subscribable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Subscribes the Bitwig values of a feature only while the current page needs it, so Bitwig
+ * doesn't send updates nobody looks at, e.g. clip states while only the USER page is used.
+ * <p>
+ * Components register what they observe per feature, all of it starts subscribed like after
+ * markInterested. A feature which gets subscribed again may have missed changes, its resync
+ * callbacks run once Bitwig had time to send the current values.
+ * <p>
+ * Only used on the host thread.
+ */
+public class SubscriptionManager {
+
+    /** Clip slots of the visible banks and the caches around them */
+    public static final int CLIP_STATE = 1;
+    /** Mute and arm of the cursor track */
+    public static final int CHANNEL_STRIP = 1 << 1;
+    /** BWS discovery, its clip cache and the selection */
+    public static final int BWS_TRACKS = 1 << 2;
+    public static final int ALL = CLIP_STATE | CHANNEL_STRIP | BWS_TRACKS;
+    private static final int NUM_FEATURES = 3;
+
+    /** Time Bitwig gets to send the values after subscribing */
+    private static final int RESYNC_DELAY_MS = 100;
+
+    private final HostScheduler scheduler;
+    private final List<List<Subscribable>> subscribables = new ArrayList<>(NUM_FEATURES);
+    private final List<List<Runnable>> resyncs = new ArrayList<>(NUM_FEATURES);
+    private final Object[] resyncTaskKeys = new Object[NUM_FEATURES];
+    private int activeFeatures = ALL;
+
+    public SubscriptionManager(HostScheduler scheduler) {
+        this.scheduler = scheduler;
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            subscribables.add(new ArrayList<>());
+            resyncs.add(new ArrayList<>());
+            resyncTaskKeys[i] = new Object();
+        }
+    }
+
+    /**
+     * @param feature one of the feature bits
+     */
+    public void register(int feature, Subscribable... values) {
+        List<Subscribable> list = subscribables.get(indexOf(feature));
+        list.addAll(Arrays.asList(values));
+        if ((activeFeatures & feature) == 0) {
+            for (Subscribable value : values) {
+                value.unsubscribe();
+            }
+        }
+    }
+
+    /**
+     * @param feature one of the feature bits
+     * @param resync brings the state of the component up to date after the feature was subscribed again
+     */
+    public void onResubscribed(int feature, Runnable resync) {
+        resyncs.get(indexOf(feature)).add(resync);
+    }
+
+    /**
+     * Subscribes the values of the features which are needed and unsubscribes the others.
+     *
+     * @param features bits of the features the current page needs
+     */
+    public void setActiveFeatures(int features) {
+        int changed = features ^ activeFeatures;
+        activeFeatures = features;
+        for (int i = 0; i < NUM_FEATURES; i++) {
+            int feature = 1 << i;
+            if ((changed & feature) == 0) continue;
+
+            boolean subscribe = (features & feature) != 0;
+            for (Subscribable value : subscribables.get(i)) {
+                value.setIsSubscribed(subscribe);
+            }
+            if (subscribe && !resyncs.get(i).isEmpty()) {
+                List<Runnable> featureResyncs = resyncs.get(i);
+                scheduler.scheduleCoalesced(resyncTaskKeys[i], () -> {
+                    // the page may have changed again in between
+                    if ((activeFeatures & feature) == 0) return;
+                    featureResyncs.forEach(Runnable::run);
+                }, RESYNC_DELAY_MS);
+            }
+        }
+    }
+
+    public boolean isActive(int feature) {
+        return (activeFeatures & feature) != 0;
+    }
+
+    private static int indexOf(int feature) {
+        int index = Integer.numberOfTrailingZeros(feature);
+        if (Integer.bitCount(feature) != 1 || index >= NUM_FEATURES) {
+            throw new IllegalArgumentException("Not a single feature: " + feature);
+        }
+        return index;
+    }
+}
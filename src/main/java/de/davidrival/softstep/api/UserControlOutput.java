@@ -0,0 +1,87 @@
+package de.davidrival.softstep.api;
+
+import java.util.Arrays;
+
+/**
+ * Output stage between the pads and the user controls, so Bitwig only gets values which change something.
+ * <p>
+ * Per user control the last sent value is kept, an offered value which equals it is dropped and a value
+ * within the deadband around it as well. The other values wait for the next flush, a control which gets
+ * several values between two flushes sends only the latest one. The values the pad sends at the ends of
+ * its configured range always pass the deadband, so releasing a pad reaches its resting value even if the
+ * range starts above 0 or is inverted.
+ * <p>
+ * Only used on the host thread.
+ */
+public class UserControlOutput {
+
+    private static final int NOT_SENT = -1;
+
+    /** Sends a value to a user control, called on flush */
+    public interface Sender {
+        void send(int index, int value);
+    }
+
+    private final Sender sender;
+    private final Runnable flushRequest;
+    private final int[] lastSent;
+    private final int[] pending;
+    /** Bit per user control with a pending value */
+    private long pendingMask = 0;
+
+    public UserControlOutput(int controls, Sender sender, Runnable flushRequest) {
+        if (controls > Long.SIZE) {
+            throw new IllegalArgumentException("Unsupported number of user controls: " + controls);
+        }
+        this.sender = sender;
+        this.flushRequest = flushRequest;
+        this.lastSent = new int[controls];
+        this.pending = new int[controls];
+        Arrays.fill(lastSent, NOT_SENT);
+    }
+
+    /**
+     * @param deadband values closer than this to the last sent one are dropped, 0 or 1 only drop equal values
+     * @param rangeStart value the pad sends at the start of its range, e.g. when released, passes the deadband
+     * @param rangeEnd value the pad sends at the end of its range, passes the deadband
+     * @return false if the value was dropped
+     */
+    public boolean offer(int index, int value, int deadband, int rangeStart, int rangeEnd) {
+        boolean isPending = (pendingMask & (1L << index)) != 0;
+        int last = lastSent[index];
+        boolean isRangeEnd = value == rangeStart || value == rangeEnd;
+        if (last != NOT_SENT && Math.abs(value - last) < Math.max(1, deadband)
+                && (value == last || !isRangeEnd)) {
+            // a pending value which moved back next to the last one isn't needed anymore
+            pendingMask &= ~(1L << index);
+            return false;
+        }
+
+        pending[index] = value;
+        pendingMask |= 1L << index;
+        if (!isPending) {
+            flushRequest.run();
+        }
+        return true;
+    }
+
+    /**
+     * Tells the stage about a value which was sent past it, e.g. by a burst.
+     */
+    public void recordSent(int index, int value) {
+        lastSent[index] = value;
+        pendingMask &= ~(1L << index);
+    }
+
+    /**
+     * Sends the latest pending value of every user control, called on every host flush.
+     */
+    public void flush() {
+        for (long mask = pendingMask; mask != 0; mask &= mask - 1) {
+            int index = Long.numberOfTrailingZeros(mask);
+            lastSent[index] = pending[index];
+            sender.send(index, pending[index]);
+        }
+        pendingMask = 0;
+    }
+}
@@ -0,0 +1,203 @@
+package de.davidrival.softstep.controller;
+
+import java.util.Arrays;
+
+/**
+ * Index of the tracks tagged with a BWS slot, kept by the {@link BwsTrackDiscoveryService} both ways in int arrays.
+ * <p>
+ * A slot points to the project position of its track, or to the position of a collapsed group and the
+ * index of the track within the group. Positions point back to the slot of the track at the position,
+ * tracks in collapsed groups have no position of their own. Each track can only have one slot and a tag
+ * which turns up on another track moves the slot there (the last one wins).
+ * <p>
+ * Only used on the host thread.
+ */
+class BwsSlotIndex {
+
+    static final int SLOT_COUNT = BwsTagScanner.MAX_SLOTS;
+    static final int NO_POSITION = -1;
+    static final int NO_CHILD = -1;
+
+    interface Listener {
+        /**
+         * @param position project position of the track or its group, {@link #NO_POSITION} if the slot was released
+         * @param child index of the track in a collapsed group or {@link #NO_CHILD}
+         * @param trackName name of the tagged track, null if the slot was released
+         */
+        void onSlotChanged(int bwsSlot, int position, int child, String trackName);
+    }
+
+    private final int[] slotPositions = new int[SLOT_COUNT];       // BWS slot → project position
+    private final int[] slotChildren = new int[SLOT_COUNT];        // BWS slot → index in collapsed group
+    private final String[] slotNames = new String[SLOT_COUNT];     // BWS slot → track name
+    private int[] positionSlots;                                    // project position → BWS slot, grows with the project
+    private final BwsTagScanner tagScanner = new BwsTagScanner();
+    private final Listener listener;
+    private int count = 0;
+
+    /**
+     * @param positions number of positions to start with, more are added when needed
+     */
+    BwsSlotIndex(int positions, Listener listener) {
+        this.positionSlots = new int[Math.max(1, positions)];
+        this.listener = listener;
+        clear();
+    }
+
+    /**
+     * @return project position of the track or its group, {@link #NO_POSITION} if no track has the tag
+     */
+    int getPosition(int bwsSlot) {
+        return slotPositions[bwsSlot];
+    }
+
+    /**
+     * @return index of the track in its collapsed group or {@link #NO_CHILD}
+     */
+    int getChild(int bwsSlot) {
+        return slotChildren[bwsSlot];
+    }
+
+    String getName(int bwsSlot) {
+        return slotNames[bwsSlot];
+    }
+
+    /**
+     * @return slot of the track at the position or {@link BwsTagScanner#NO_SLOT}
+     */
+    int slotAt(int position) {
+        return position >= 0 && position < positionSlots.length ? positionSlots[position] : BwsTagScanner.NO_SLOT;
+    }
+
+    /**
+     * @return number of slots with a track
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @return true if reparsing the position would change the index, e.g. a tagged track was renamed
+     *         or an untagged one got a tag
+     */
+    boolean differs(int position, String trackName, boolean exists) {
+        boolean tagged = exists && trackName != null && tagScanner.scan(trackName);
+        int bwsSlot = slotAt(position);
+        if (bwsSlot == BwsTagScanner.NO_SLOT) return tagged;
+        return !tagged || tagScanner.getSlot() != bwsSlot || !trackName.equals(slotNames[bwsSlot]);
+    }
+
+    /**
+     * Maps the track at the position to the slot of its tag, a tag it had before is released.
+     *
+     * @param exists false if there is no track at the position
+     */
+    void reparse(int position, String trackName, boolean exists) {
+        int oldSlot = slotAt(position);
+        if (oldSlot != BwsTagScanner.NO_SLOT) {
+            release(oldSlot);
+        }
+        if (!exists || trackName == null || !tagScanner.scan(trackName)) return;
+
+        assign(tagScanner.getSlot(), position, NO_CHILD, trackName);
+    }
+
+    /**
+     * Reparses a window of project positions. Tracks in the collapsed groups of the window lose their
+     * slots, the children of the groups are reported again after the window.
+     *
+     * @param names names of the window, null for positions without a track
+     */
+    void onWindowChanged(int firstPosition, String[] names) {
+        int end = firstPosition + names.length;
+        for (int bwsSlot = 0; bwsSlot < SLOT_COUNT; bwsSlot++) {
+            int position = slotPositions[bwsSlot];
+            if (slotChildren[bwsSlot] != NO_CHILD && position >= firstPosition && position < end) {
+                release(bwsSlot);
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            reparse(firstPosition + i, names[i], names[i] != null);
+        }
+    }
+
+    /**
+     * Maps the tagged children of a collapsed group.
+     *
+     * @param names names of the children from firstChild on, null for positions without a track
+     */
+    void onGroupChildrenChanged(int groupPosition, int firstChild, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && tagScanner.scan(names[i])) {
+                assign(tagScanner.getSlot(), groupPosition, firstChild + i, names[i]);
+            }
+        }
+    }
+
+    /**
+     * Releases the slots of tracks at or behind the position, e.g. after tracks were removed from the end.
+     */
+    void releaseFrom(int position) {
+        for (int bwsSlot = 0; bwsSlot < SLOT_COUNT; bwsSlot++) {
+            if (slotPositions[bwsSlot] >= position) {
+                release(bwsSlot);
+            }
+        }
+    }
+
+    /**
+     * Maps a BWS slot to a track, a track which had the tag before loses it.
+     *
+     * @param position project position of the track, or of its group if child is set
+     * @param child index of the track in a collapsed group or {@link #NO_CHILD}
+     */
+    void assign(int bwsSlot, int position, int child, String trackName) {
+        release(bwsSlot);
+        if (child == NO_CHILD) {
+            ensurePosition(position);
+            int oldSlot = positionSlots[position];
+            if (oldSlot != BwsTagScanner.NO_SLOT) {
+                release(oldSlot);
+            }
+            positionSlots[position] = bwsSlot;
+        }
+        slotPositions[bwsSlot] = position;
+        slotChildren[bwsSlot] = child;
+        slotNames[bwsSlot] = trackName;
+        count++;
+        listener.onSlotChanged(bwsSlot, position, child, trackName);
+    }
+
+    void release(int bwsSlot) {
+        int position = slotPositions[bwsSlot];
+        if (position == NO_POSITION) return;
+
+        if (slotChildren[bwsSlot] == NO_CHILD) {
+            positionSlots[position] = BwsTagScanner.NO_SLOT;
+        }
+        slotPositions[bwsSlot] = NO_POSITION;
+        slotChildren[bwsSlot] = NO_CHILD;
+        slotNames[bwsSlot] = null;
+        count--;
+        listener.onSlotChanged(bwsSlot, NO_POSITION, NO_CHILD, null);
+    }
+
+    /**
+     * Forgets all tracks, the listener isn't told.
+     */
+    void clear() {
+        Arrays.fill(slotPositions, NO_POSITION);
+        Arrays.fill(slotChildren, NO_CHILD);
+        Arrays.fill(slotNames, null);
+        Arrays.fill(positionSlots, BwsTagScanner.NO_SLOT);
+        count = 0;
+    }
+
+    private void ensurePosition(int position) {
+        if (position < positionSlots.length) return;
+
+        int oldLength = positionSlots.length;
+        positionSlots = Arrays.copyOf(positionSlots, Math.max(position + 1, oldLength * 2));
+        Arrays.fill(positionSlots, oldLength, positionSlots.length, BwsTagScanner.NO_SLOT);
+    }
+}
@@ -0,0 +1,79 @@
+package de.davidrival.softstep.controller;
+
+/**
+ * Finds the BWS tag, e.g. {@code <BWS:3>}, in a track name with a single pass over the name.
+ * <p>
+ * Slots are numbered from 0 to {@link #MAX_SLOTS} - 1, a name with several tags belongs to the first one.
+ * After a successful {@link #scan} the slot and the position of the tag are available until the next scan.
+ * No objects are created, one instance is reused on the host thread.
+ */
+public class BwsTagScanner {
+
+    public static final int MAX_SLOTS = 32;
+    public static final int NO_SLOT = -1;
+
+    private static final String TAG_START = "<BWS:";
+    private static final int MAX_DIGITS = 2;
+
+    private int slot = NO_SLOT;
+    private int tagStart = -1;
+    private int tagEnd = -1;
+
+    /**
+     * @return true if the name has a valid tag
+     */
+    public boolean scan(CharSequence name) {
+        slot = NO_SLOT;
+        tagStart = -1;
+        tagEnd = -1;
+        if (name == null) return false;
+
+        int length = name.length();
+        // a tag needs at least "<BWS:" + digit + '>'
+        for (int i = 0; i + TAG_START.length() + 2 <= length; i++) {
+            if (name.charAt(i) != '<' || !startsWithTag(name, i)) continue;
+
+            int number = 0;
+            int digits = 0;
+            int j = i + TAG_START.length();
+            while (j < length && digits < MAX_DIGITS && isDigit(name.charAt(j))) {
+                number = number * 10 + name.charAt(j) - '0';
+                digits++;
+                j++;
+            }
+            if (digits > 0 && j < length && name.charAt(j) == '>' && number < MAX_SLOTS) {
+                slot = number;
+                tagStart = i;
+                tagEnd = j + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return slot of the last scan or {@link #NO_SLOT}
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return the last scanned name without its tag, e.g. for the display
+     */
+    public String nameWithoutTag(String name) {
+        if (slot == NO_SLOT) return name;
+        return (name.substring(0, tagStart) + name.substring(tagEnd)).trim();
+    }
+
+    private static boolean startsWithTag(CharSequence name, int offset) {
+        for (int k = 1; k < TAG_START.length(); k++) {
+            if (name.charAt(offset + k) != TAG_START.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -4,58 +4,116 @@ import com.bitwig.extension.controller.api.ControllerHost;
 import com.bitwig.extension.controller.api.TrackBank;
 import com.bitwig.extension.controller.api.Track;
 import com.bitwig.extension.controller.api.CursorTrack;
+import de.davidrival.softstep.api.BwsClipCache;
+import de.davidrival.softstep.api.HostScheduler;
+import de.davidrival.softstep.api.HostStateMirror;
+import de.davidrival.softstep.api.SubscriptionManager;
 import de.davidrival.softstep.debug.DebugLogger;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * BWS Track Discovery Service
  * 
- * Discovers and manages tracks tagged with <BWS:0> to <BWS:5> for one-button track cycling.
- * Uses a large TrackBank (128 tracks) for project-wide discovery while maintaining 
- * Track references that survive track reordering.
+ * Discovers and manages tracks tagged with <BWS:0> to <BWS:31> for one-button track cycling.
+ * Uses a large TrackBank (128 tracks) for project-wide discovery, bank positions and
+ * BWS slots are indexed both ways in a {@link BwsSlotIndex}.
+ * Larger projects can use the windowed discovery instead, a {@link WindowedBwsScanner} slides a small
+ * bank over the project and a one track bank navigates to the tagged tracks.
+ * Group aware discovery works on the flat track list and also finds tracks in collapsed groups,
+ * a slot then points to the group and the index of the track within it.
  * 
  * Features:
  * - Real-time track name observation and BWS tag detection
- * - Round-robin cycling through available BWS tracks (0→1→2→3→4→5→0)
- * - Track reference storage (survives project changes)
+ * - Round-robin cycling through available BWS tracks (0→1→...→31→0)
+ * - Single pass tag scan per name change, no map updates
  * - Integration with hardware LED feedback system
  */
 public class BwsTrackDiscoveryService {
     
     private static final int DISCOVERY_TRACK_BANK_SIZE = 128;  // Large bank for discovery
-    private static final int BWS_SLOT_COUNT = 6;  // BWS slots 0-5
+    private static final int BWS_SLOT_COUNT = BwsSlotIndex.SLOT_COUNT;
+    private static final int NO_POSITION = BwsSlotIndex.NO_POSITION;
+    private static final int NO_CHILD = BwsSlotIndex.NO_CHILD;
+    private static final Object REDISCOVERY_TASK_KEY = new Object();
+    /** Changes within this window are processed together */
+    private static final int REDISCOVERY_DELAY_MS = 250;
+    /** Time Bitwig gets to report the track the navigator bank scrolled to */
+    private static final int NAVIGATION_SETTLE_MS = 100;
     
     private final ControllerHost host;
-    private final TrackBank allTracksBank;  // Large bank for discovery
+    private final HostScheduler scheduler;
+    private final HostStateMirror hostState;
+    private final BwsClipCache clipCache;   // Clip states of the first BWS tracks
+    private final TrackBank allTracksBank;  // Large bank for discovery, null in windowed mode
+    private final WindowedBwsScanner windowScanner; // null in fixed mode
+    private final TrackBank navigatorBank;  // One track bank to select tracks in windowed mode
+    private final TrackBank navigatorChildren; // Children of the navigator track in group aware mode
     private final CursorTrack cursorTrack;   // Track current Bitwig selection
     private final PadConfigurationManager padConfigManager; // For debug flags
     
-    // BWS track storage
-    private final Map<Integer, Track> bwsTrackReferences = new HashMap<>();  // BWS slot → Track reference
-    private final Map<Integer, Integer> bwsTrackPositions = new HashMap<>();  // BWS slot → Bank position (for debugging)
-    private final Map<Track, Integer> trackToBwsSlot = new HashMap<>();       // Track reference → BWS slot (for selection detection)
+    // BWS track storage, positions grow with the project in windowed mode
+    private final BwsSlotIndex bwsSlots = new BwsSlotIndex(DISCOVERY_TRACK_BANK_SIZE, this::onBwsSlotChanged);
+    private final BwsTagScanner tagScanner = new BwsTagScanner();
+    
+    // Bank positions whose name or existence changed since the last processing
+    private final long[] dirtyPositions = new long[(DISCOVERY_TRACK_BANK_SIZE + Long.SIZE - 1) / Long.SIZE];
+    private int knownTrackCount = 0;
     private int currentBwsSlot = 0;  // Current cycle position
     
     // Discovery state
     private boolean initialized = false;
-    private int discoveredBwsTracks = 0;
     
     // LED update callback
     private LedUpdateCallback ledUpdateCallback;
+    private TrackNameCallback trackNameCallback;
+    private CycleCallback cycleCallback;
     
-    public BwsTrackDiscoveryService(ControllerHost host, PadConfigurationManager padConfigManager) {
+    public BwsTrackDiscoveryService(ControllerHost host, HostScheduler scheduler, HostStateMirror hostState
+            , BwsClipCache clipCache, SubscriptionManager subscriptions, PadConfigurationManager padConfigManager) {
         this.host = host;
+        this.scheduler = scheduler;
+        this.hostState = hostState;
+        this.clipCache = clipCache;
         this.padConfigManager = padConfigManager;
+        clearBwsMapping();
         
-        // Create large TrackBank for project-wide discovery
-        this.allTracksBank = host.createMainTrackBank(DISCOVERY_TRACK_BANK_SIZE, 0, 0);
+        // Banks can only be created during init, so the mode applies after a restart
+        if (padConfigManager.isGroupAwareBwsDiscovery()) {
+            // positions are in the flat track list, the navigator has to use it as well
+            this.allTracksBank = null;
+            this.windowScanner = new WindowedBwsScanner(host, scheduler, new WindowListener(), true);
+            this.navigatorBank = host.createTrackBank(1, 0, 0, true);
+            this.navigatorChildren = navigatorBank.getItemAt(0).createTrackBank(1, 0, 0, true);
+        } else if (padConfigManager.isWindowedBwsDiscovery()) {
+            this.allTracksBank = null;
+            this.windowScanner = new WindowedBwsScanner(host, scheduler, new WindowListener(), false);
+            this.navigatorBank = host.createMainTrackBank(1, 0, 0);
+            this.navigatorChildren = null;
+        } else {
+            // Create large TrackBank for project-wide discovery
+            this.allTracksBank = host.createMainTrackBank(DISCOVERY_TRACK_BANK_SIZE, 0, 0);
+            this.windowScanner = null;
+            this.navigatorBank = null;
+            this.navigatorChildren = null;
+        }
         
         // Create cursor track to observe current selection
         this.cursorTrack = host.createCursorTrack("BWS_CURSOR", "BWS Cursor", 0, 0, true);
         
-        DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Initialized with " + DISCOVERY_TRACK_BANK_SIZE + " track discovery bank");
+        // Only the PERF page cycles BWS tracks, changes missed in between are caught up on by a resync
+        if (windowScanner != null) {
+            subscriptions.register(SubscriptionManager.BWS_TRACKS, windowScanner.getBanks());
+            subscriptions.register(SubscriptionManager.BWS_TRACKS, navigatorBank);
+        } else {
+            subscriptions.register(SubscriptionManager.BWS_TRACKS, allTracksBank);
+        }
+        subscriptions.register(SubscriptionManager.BWS_TRACKS, cursorTrack);
+        subscriptions.onResubscribed(SubscriptionManager.BWS_TRACKS, this::resync);
+        
+        DebugLogger.common(host, padConfigManager, windowScanner != null
+                ? "BwsTrackDiscoveryService: Initialized with windowed discovery of " + WindowedBwsScanner.WINDOW_SIZE + " tracks"
+                : "BwsTrackDiscoveryService: Initialized with " + DISCOVERY_TRACK_BANK_SIZE + " track discovery bank");
     }
     
     /**
@@ -70,17 +128,18 @@ public class BwsTrackDiscoveryService {
         
         DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Setting up track name observers...");
         
+        if (windowScanner != null) {
+            initializeWindowed();
+            return;
+        }
+        
         // Observe track count changes to trigger rediscovery when tracks become available
         allTracksBank.itemCount().markInterested();
         allTracksBank.itemCount().addValueObserver(trackCount -> {
-            DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Track count changed to " + trackCount + " - triggering rediscovery");
-            if (trackCount > 0 && initialized) {
-                // Rediscover BWS tracks when new tracks become available
-                host.scheduleTask(() -> {
-                    DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Auto-rediscovery triggered by track count change");
-                    rediscoverBwsTracks();
-                }, 500); // Short delay to let track data populate
-            }
+            DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Track count changed to " + trackCount);
+            // Positions which appeared or disappeared, moved tracks report their new names themselves
+            markDirty(Math.min(knownTrackCount, trackCount), Math.max(knownTrackCount, trackCount));
+            knownTrackCount = trackCount;
         });
         
         // Set up track name observation for all tracks in discovery bank
@@ -94,11 +153,8 @@ public class BwsTrackDiscoveryService {
             
             // Observe track name changes for BWS tag detection
             track.name().addValueObserver(trackName -> {
-                DebugLogger.common(host, padConfigManager, String.format("BWS Observer: Track %d name changed to: \"%s\"", finalTrackIndex, trackName));
-                reparseTrackForBwsTags(finalTrackIndex, track, trackName);
-                
-                // Update LED after track name changes
-                updateBwsLedFeedback();
+                DebugLogger.commonf(host, padConfigManager, "BWS Observer: Track %d name changed to: \"%s\"", finalTrackIndex, trackName);
+                markDirty(finalTrackIndex, finalTrackIndex + 1);
             });
         }
         
@@ -112,43 +168,124 @@ public class BwsTrackDiscoveryService {
         DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Initialization complete");
         
         // Delay initial discovery to allow TrackBank to populate
-        host.scheduleTask(() -> {
+        scheduler.schedule(() -> {
             DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Starting delayed initial discovery...");
             performInitialDiscovery();
         }, 2000); // 2 second delay
     }
     
+    /**
+     * Windowed mode: the scanner reports changed windows, only the navigator bank and the cursor are observed here.
+     */
+    private void initializeWindowed() {
+        Track navigatorTrack = navigatorBank.getItemAt(0);
+        navigatorTrack.exists().markInterested();
+        navigatorTrack.name().markInterested();
+        if (navigatorChildren != null) {
+            navigatorChildren.getItemAt(0).exists().markInterested();
+            navigatorChildren.getItemAt(0).name().markInterested();
+        }
+        
+        cursorTrack.name().markInterested();
+        cursorTrack.name().addValueObserver(this::updateLedForCurrentSelection);
+        
+        initialized = true;
+        DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Initialization complete (windowed)");
+        
+        // Delay initial discovery to allow the bank to populate
+        windowScanner.start(2000);
+    }
+    
+    /**
+     * Hands the changed windows of the {@link WindowedBwsScanner} to the mapping.
+     */
+    private class WindowListener implements WindowedBwsScanner.Listener {
+        @Override
+        public void onWindowChanged(int firstPosition, String[] names) {
+            bwsSlots.onWindowChanged(firstPosition, names);
+        }
+        
+        @Override
+        public void onGroupChildrenChanged(int groupPosition, int firstChild, String[] names) {
+            bwsSlots.onGroupChildrenChanged(groupPosition, firstChild, names);
+        }
+        
+        @Override
+        public void onScanFinished(int trackCount) {
+            // Tags of tracks which were removed from the end of the project
+            bwsSlots.releaseFrom(trackCount);
+            logDiscoveryResults();
+            updateBwsLedFeedback();
+        }
+    }
+    
     /**
      * Performs initial discovery of all existing BWS tracks.
      */
     private void performInitialDiscovery() {
         DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Performing initial BWS track discovery...");
+        if (windowScanner != null) {
+            windowScanner.rescan();
+            return;
+        }
+        Arrays.fill(dirtyPositions, -1L); // the bank size is a multiple of 64
+        processDirtyPositions();
+    }
+    
+    /**
+     * Catches up on the changes missed while the banks were unsubscribed. Only the positions whose name
+     * or existence differs from the mapping are reparsed, the windowed scanner only reports windows
+     * whose fingerprint changed.
+     */
+    private void resync() {
+        if (!initialized) return;
         
-        int existingTracks = 0;
-        int totalTracks = 0;
-        
-        for (int trackIndex = 0; trackIndex < DISCOVERY_TRACK_BANK_SIZE; trackIndex++) {
-            Track track = allTracksBank.getItemAt(trackIndex);
-            totalTracks++;
-            
-            boolean trackExists = track.exists().get();
-            String trackName = track.name().get();
-            
-            DebugLogger.common(host, padConfigManager, String.format("BWS Discovery: Scanning track %d - exists: %s, name: \"%s\"", 
-                trackIndex, trackExists, trackName));
-            
-            if (trackExists) {
-                existingTracks++;
-                if (!trackName.isEmpty()) {
-                    reparseTrackForBwsTags(trackIndex, track, trackName);
-                } else {
-                    DebugLogger.common(host, padConfigManager, String.format("BWS Discovery: Track %d exists but has empty name", trackIndex));
-                }
+        if (windowScanner != null) {
+            windowScanner.revisitAll();
+            return;
+        }
+        for (int position = 0; position < DISCOVERY_TRACK_BANK_SIZE; position++) {
+            Track track = allTracksBank.getItemAt(position);
+            if (bwsSlots.differs(position, track.name().get(), track.exists().get())) {
+                markDirty(position, position + 1);
+            }
+        }
+    }
+    
+    /**
+     * Marks bank positions for reparsing, the work is done once the changes paused for a moment.
+     *
+     * @param from first position
+     * @param to position after the last one
+     */
+    private void markDirty(int from, int to) {
+        to = Math.min(to, DISCOVERY_TRACK_BANK_SIZE);
+        for (int position = Math.max(0, from); position < to; position++) {
+            dirtyPositions[position / Long.SIZE] |= 1L << position;
+        }
+        if (initialized && from < to) {
+            // renames and count changes of a template load or a track insert end up in one run
+            scheduler.scheduleCoalesced(REDISCOVERY_TASK_KEY, this::processDirtyPositions, REDISCOVERY_DELAY_MS);
+        }
+    }
+    
+    /**
+     * Reparses the positions which changed and updates the LED feedback once.
+     */
+    private void processDirtyPositions() {
+        int processed = 0;
+        for (int word = 0; word < dirtyPositions.length; word++) {
+            for (long m = dirtyPositions[word]; m != 0; m &= m - 1) {
+                int position = word * Long.SIZE + Long.numberOfTrailingZeros(m);
+                Track track = allTracksBank.getItemAt(position);
+                reparseTrackForBwsTags(position, track.name().get(), track.exists().get());
+                processed++;
             }
+            dirtyPositions[word] = 0;
         }
+        if (processed == 0) return;
         
-        DebugLogger.common(host, padConfigManager, String.format("BWS Discovery: Scanned %d tracks, %d exist, processing complete", 
-            totalTracks, existingTracks));
+        DebugLogger.commonf(host, padConfigManager, "BWS Discovery: Reparsed %d changed positions", processed);
         logDiscoveryResults();
         
         // Update LED feedback after discovery
@@ -159,78 +296,93 @@ public class BwsTrackDiscoveryService {
      * Parses a track name for BWS tags and updates the BWS track mapping.
      * Called both during initial discovery and when track names change.
      * 
-     * @param trackIndex The position of the track in the discovery bank
-     * @param track The Track reference
+     * @param trackIndex The position of the track in the project
      * @param trackName The current track name to parse
+     * @param exists false if there is no track at the position
      */
-    private void reparseTrackForBwsTags(int trackIndex, Track track, String trackName) {
-        // Remove any existing BWS mappings for this track position
-        removeTrackFromBwsMapping(trackIndex);
+    private void reparseTrackForBwsTags(int trackIndex, String trackName, boolean exists) {
+        // Debug: Log all track names being checked
+        DebugLogger.commonf(host, padConfigManager, "BWS Discovery: Checking track %d: \"%s\"", 
+            trackIndex, trackName);
         
-        // Skip empty or non-existent tracks
-        if (trackName == null || trackName.trim().isEmpty() || !track.exists().get()) {
-            return;
-        }
+        bwsSlots.reparse(trackIndex, trackName, exists);
+    }
+    
+    /**
+     * Follows the mapping of a BWS slot with the clip cache.
+     */
+    private void onBwsSlotChanged(int bwsSlot, int position, int child, String trackName) {
+        // tracks in collapsed groups have no position of their own to cache
+        clipCache.track(bwsSlot, child == NO_CHILD ? position : BwsClipCache.NO_POSITION);
+        if (trackName == null) return;
         
-        // Check for BWS tags anywhere in track name - format: <BWS:N>
-        for (int bwsSlot = 0; bwsSlot < BWS_SLOT_COUNT; bwsSlot++) {
-            String bwsTag = "<BWS:" + bwsSlot + ">";
-            
-            if (trackName.contains(bwsTag)) {
-                // Found BWS tag - store track reference and position
-                bwsTrackReferences.put(bwsSlot, track);
-                bwsTrackPositions.put(bwsSlot, trackIndex);
-                trackToBwsSlot.put(track, bwsSlot);  // Reverse mapping for selection detection
-                discoveredBwsTracks = bwsTrackReferences.size();
-                
-                DebugLogger.common(host, padConfigManager, String.format("BWS Discovery: Found %s at position %d: \"%s\"", 
-                    bwsTag, trackIndex, trackName));
-                
-                break; // Each track can only have one BWS slot
-            }
+        if (child == NO_CHILD) {
+            DebugLogger.commonf(host, padConfigManager, "BWS Discovery: Found <BWS:%d> at position %d: \"%s\"", 
+                bwsSlot, position, trackName);
+        } else {
+            DebugLogger.commonf(host, padConfigManager, "BWS Discovery: Found <BWS:%d> in collapsed group at position %d: \"%s\"",
+                bwsSlot, position, trackName);
+        }
+    }
+    
+    private void clearBwsMapping() {
+        bwsSlots.clear();
+        for (int bwsSlot = 0; bwsSlot < BwsClipCache.CACHED_SLOTS; bwsSlot++) {
+            clipCache.track(bwsSlot, BwsClipCache.NO_POSITION);
         }
-        
-        // Debug: Log all track names being checked
-        DebugLogger.common(host, padConfigManager, String.format("BWS Discovery: Checking track %d: \"%s\" (exists: %s)", 
-            trackIndex, trackName, track.exists().get()));
     }
     
     /**
-     * Removes a track from BWS mapping (used when track names change or tracks are deleted).
-     * 
-     * @param trackIndex The track position to remove from mapping
+     * @return true if a track is tagged with the BWS slot
      */
-    private void removeTrackFromBwsMapping(int trackIndex) {
-        // Find and remove any BWS slot that was mapped to this track position
-        bwsTrackPositions.entrySet().removeIf(entry -> {
-            if (entry.getValue().equals(trackIndex)) {
-                // Remove from reverse mapping too
-                Integer bwsSlot = entry.getKey();
-                Track track = bwsTrackReferences.get(bwsSlot);
-                if (track != null) {
-                    trackToBwsSlot.remove(track);
-                }
-                return true;
-            }
-            return false;
-        });
+    private boolean hasBwsTrack(int bwsSlot) {
+        int position = bwsSlots.getPosition(bwsSlot);
+        if (position == NO_POSITION) return false;
+        // in windowed mode the scanner keeps the mapping to existing tracks
+        return windowScanner != null || allTracksBank.getItemAt(position).exists().get();
+    }
+    
+    /**
+     * Selects the track tagged with the BWS slot in editor and mixer.
+     */
+    private void selectBwsTrack(int bwsSlot) {
+        int position = bwsSlots.getPosition(bwsSlot);
+        if (windowScanner == null) {
+            Track bwsTrack = allTracksBank.getItemAt(position);
+            bwsTrack.selectInEditor();
+            bwsTrack.selectInMixer();
+            notifyCycled(bwsSlot);
+            return;
+        }
         
-        // Also remove from track references (check if track reference matches position)
-        bwsTrackReferences.entrySet().removeIf(entry -> {
-            Integer mappedPosition = bwsTrackPositions.get(entry.getKey());
-            if (mappedPosition != null && mappedPosition.equals(trackIndex)) {
-                trackToBwsSlot.remove(entry.getValue());  // Remove from reverse mapping
-                return true;
+        // The track can be anywhere in the project, the navigator bank has to scroll to it first
+        int child = bwsSlots.getChild(bwsSlot);
+        navigatorBank.scrollPosition().set(position);
+        if (child != NO_CHILD) {
+            navigatorChildren.scrollPosition().set(child);
+        }
+        scheduler.schedule(() -> {
+            Track bwsTrack = child != NO_CHILD ? navigatorChildren.getItemAt(0) : navigatorBank.getItemAt(0);
+            // the project may have changed in between, only select the track which still has the tag
+            if (!bwsTrack.exists().get() || !tagScanner.scan(bwsTrack.name().get()) || tagScanner.getSlot() != bwsSlot) {
+                DebugLogger.perff(host, padConfigManager, "BWS Cycle: Track at position %d no longer has <BWS:%d>", position, bwsSlot);
+                return;
             }
-            return false;
-        });
-        
-        discoveredBwsTracks = bwsTrackReferences.size();
+            bwsTrack.selectInEditor();
+            bwsTrack.selectInMixer();
+            notifyCycled(bwsSlot);
+        }, NAVIGATION_SETTLE_MS);
+    }
+    
+    private void notifyCycled(int bwsSlot) {
+        if (cycleCallback != null) {
+            cycleCallback.onBwsTrackCycled(bwsSlot);
+        }
     }
     
     /**
      * Cycles to the next available BWS track in sequence.
-     * Navigation order: BWS:0 → BWS:1 → BWS:2 → BWS:3 → BWS:4 → BWS:5 → BWS:0
+     * Navigation order: BWS:0 → BWS:1 → ... → BWS:31 → BWS:0, slots without a track are skipped
      * 
      * @return true if a BWS track was found and navigated to, false if no BWS tracks available
      */
@@ -240,25 +392,20 @@ public class BwsTrackDiscoveryService {
             return false;
         }
         
-        if (discoveredBwsTracks == 0) {
+        if (bwsSlots.getCount() == 0) {
             DebugLogger.perf(host, padConfigManager, "BWS Cycle: No BWS tracks found in project");
             return false;
         }
         
         // Find next available BWS track starting from current position
         for (int attempts = 0; attempts < BWS_SLOT_COUNT; attempts++) {
-            Track bwsTrack = bwsTrackReferences.get(currentBwsSlot);
-            
-            if (bwsTrack != null && bwsTrack.exists().get()) {
+            if (hasBwsTrack(currentBwsSlot)) {
                 // Navigate to the BWS track
-                bwsTrack.selectInEditor();
-                bwsTrack.selectInMixer();
+                selectBwsTrack(currentBwsSlot);
                 
-                String trackName = bwsTrack.name().get();
-                Integer trackPosition = bwsTrackPositions.get(currentBwsSlot);
-                
-                DebugLogger.perf(host, padConfigManager, String.format("BWS Cycle: Navigated to BWS:%d (position %d) - \"%s\"", 
-                    currentBwsSlot, trackPosition != null ? trackPosition : -1, trackName));
+                String trackName = bwsSlots.getName(currentBwsSlot);
+                DebugLogger.perff(host, padConfigManager, "BWS Cycle: Navigated to BWS:%d (position %d) - \"%s\"", 
+                    currentBwsSlot, bwsSlots.getPosition(currentBwsSlot), trackName);
                 
                 // Advance to next BWS slot for next cycle
                 int previousBwsSlot = currentBwsSlot;
@@ -279,19 +426,17 @@ public class BwsTrackDiscoveryService {
      * Gets the current BWS slot that will be navigated to on next cycle.
      * Used for LED feedback to show which BWS track is next.
      * 
-     * @return Current BWS slot (0-5), or -1 if no BWS tracks available
+     * @return Current BWS slot (0-31), or -1 if no BWS tracks available
      */
     public int getCurrentBwsSlot() {
-        if (!initialized || discoveredBwsTracks == 0) {
+        if (!initialized || bwsSlots.getCount() == 0) {
             return -1;
         }
         
         // Return the slot that would be used on next cycle
         for (int attempts = 0; attempts < BWS_SLOT_COUNT; attempts++) {
             int checkSlot = (currentBwsSlot + attempts) % BWS_SLOT_COUNT;
-            Track bwsTrack = bwsTrackReferences.get(checkSlot);
-            
-            if (bwsTrack != null && bwsTrack.exists().get()) {
+            if (hasBwsTrack(checkSlot)) {
                 return checkSlot;
             }
         }
@@ -302,10 +447,10 @@ public class BwsTrackDiscoveryService {
     /**
      * Gets the number of discovered BWS tracks.
      * 
-     * @return Number of BWS tracks (0-6)
+     * @return Number of BWS tracks (0-32)
      */
     public int getBwsTrackCount() {
-        return discoveredBwsTracks;
+        return bwsSlots.getCount();
     }
     
     /**
@@ -322,20 +467,18 @@ public class BwsTrackDiscoveryService {
      */
     private void logDiscoveryResults() {
         DebugLogger.common(host, padConfigManager, "=== BWS Track Discovery Results ===");
-        DebugLogger.common(host, padConfigManager, "Discovered " + discoveredBwsTracks + " BWS tracks:");
+        DebugLogger.common(host, padConfigManager, "Discovered " + bwsSlots.getCount() + " BWS tracks:");
         
         for (int bwsSlot = 0; bwsSlot < BWS_SLOT_COUNT; bwsSlot++) {
-            Track bwsTrack = bwsTrackReferences.get(bwsSlot);
-            Integer position = bwsTrackPositions.get(bwsSlot);
+            int position = bwsSlots.getPosition(bwsSlot);
             
-            if (bwsTrack != null && position != null) {
-                String trackName = bwsTrack.name().get();
-                DebugLogger.common(host, padConfigManager, String.format("  BWS:%d → Position %d: \"%s\"", bwsSlot, position, trackName));
+            if (position != NO_POSITION) {
+                DebugLogger.commonf(host, padConfigManager, "  BWS:%d → Position %d: \"%s\"", bwsSlot, position, bwsSlots.getName(bwsSlot));
             }
         }
         
-        if (discoveredBwsTracks == 0) {
-            DebugLogger.common(host, padConfigManager, "  No BWS tracks found. Add <BWS:0> to <BWS:5> tags to track names for navigation.");
+        if (bwsSlots.getCount() == 0) {
+            DebugLogger.common(host, padConfigManager, "  No BWS tracks found. Add <BWS:0> to <BWS:31> tags to track names for navigation.");
         }
         
         DebugLogger.common(host, padConfigManager, "=== End BWS Discovery Results ===");
@@ -349,10 +492,7 @@ public class BwsTrackDiscoveryService {
         DebugLogger.common(host, padConfigManager, "BwsTrackDiscoveryService: Manual rediscovery requested");
         
         // Clear existing mapping
-        bwsTrackReferences.clear();
-        bwsTrackPositions.clear();
-        trackToBwsSlot.clear();  // Clear reverse mapping too
-        discoveredBwsTracks = 0;
+        clearBwsMapping();
         currentBwsSlot = 0;
         
         // Perform fresh discovery
@@ -375,27 +515,40 @@ public class BwsTrackDiscoveryService {
      * @param currentTrackName The name of the currently selected track
      */
     private void updateLedForCurrentSelection(String currentTrackName) {
-        if (!initialized || ledUpdateCallback == null) {
+        if (!initialized) {
             return;
         }
         
         // Check if current track is a BWS track
-        Integer bwsSlot = null;
-        for (int slot = 0; slot < BWS_SLOT_COUNT; slot++) {
-            String bwsTag = "<BWS:" + slot + ">";
-            if (currentTrackName != null && currentTrackName.contains(bwsTag)) {
-                bwsSlot = slot;
-                break;
-            }
+        boolean isBwsTrack = tagScanner.scan(currentTrackName);
+
+        // Rendered on the next flush, name changes of many tracks end up as one update
+        hostState.setBwsSelection(isBwsTrack ? tagScanner.getSlot() : HostStateMirror.NO_BWS_TRACK
+                , isBwsTrack ? tagScanner.nameWithoutTag(currentTrackName) : null);
+    }
+
+    /**
+     * Shows the selection from the {@link HostStateMirror} through the callbacks, called on flush.
+     *
+     * @param bwsSlot selected BWS slot or {@link HostStateMirror#NO_BWS_TRACK}
+     * @param trackName name of the selected BWS track without its tag, null for non-BWS tracks
+     */
+    public void renderSelection(int bwsSlot, String trackName) {
+        if (trackNameCallback != null) {
+            trackNameCallback.onBwsTrackSelected(trackName);
         }
-        
-        if (bwsSlot != null) {
+
+        if (ledUpdateCallback == null) {
+            return;
+        }
+
+        if (bwsSlot != HostStateMirror.NO_BWS_TRACK) {
             // Current track is a BWS track - show corresponding LED state
-            DebugLogger.perf(host, padConfigManager, String.format("BWS LED: Currently selected BWS:%d track (\"%s\")", bwsSlot, currentTrackName));
+            DebugLogger.perff(host, padConfigManager, "BWS LED: Currently selected BWS:%d track (\"%s\")", bwsSlot, trackName);
             ledUpdateCallback.updateBwsLed(bwsSlot);
         } else {
             // Current track is not a BWS track - show blinking green
-            DebugLogger.perf(host, padConfigManager, String.format("BWS LED: Currently selected non-BWS track (\"%s\") - showing green blink", currentTrackName));
+            DebugLogger.perf(host, padConfigManager, "BWS LED: Currently selected non-BWS track - showing green blink");
             ledUpdateCallback.updateBwsLed(-2); // Special value for non-BWS track
         }
     }
@@ -409,6 +562,44 @@ public class BwsTrackDiscoveryService {
         this.ledUpdateCallback = callback;
     }
     
+    /**
+     * Sets the callback which gets the name of the selected BWS track, e.g. for the display.
+     *
+     * @param callback The callback to handle track name updates
+     */
+    public void setTrackNameCallback(TrackNameCallback callback) {
+        this.trackNameCallback = callback;
+    }
+
+    /**
+     * Sets the callback which is told the BWS slot a cycle selected, e.g. to draw its cached clips.
+     *
+     * @param callback The callback to handle cycled tracks
+     */
+    public void setCycleCallback(CycleCallback callback) {
+        this.cycleCallback = callback;
+    }
+
+    /**
+     * Interface for cycle callbacks.
+     */
+    public interface CycleCallback {
+        /**
+         * @param bwsSlot BWS slot (0-31) of the track which was just selected
+         */
+        void onBwsTrackCycled(int bwsSlot);
+    }
+
+    /**
+     * Interface for track name callbacks.
+     */
+    public interface TrackNameCallback {
+        /**
+         * @param trackName name of the selected BWS track without its tag, null if a non-BWS track is selected
+         */
+        void onBwsTrackSelected(String trackName);
+    }
+
     /**
      * Interface for LED update callbacks.
      */
@@ -416,7 +607,7 @@ public class BwsTrackDiscoveryService {
         /**
          * Updates the BWS LED based on current selection.
          * 
-         * @param bwsSlot BWS slot (0-5) if BWS track selected, -1 if no BWS tracks available, -2 if non-BWS track selected
+         * @param bwsSlot BWS slot (0-31) if BWS track selected, -1 if no BWS tracks available, -2 if non-BWS track selected
          */
         void updateBwsLed(int bwsSlot);
     }
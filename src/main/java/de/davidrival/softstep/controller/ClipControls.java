@@ -5,8 +5,6 @@ import de.davidrival.softstep.api.ApiManager;
 import de.davidrival.softstep.api.BaseConsolePrinter;
 
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 
 public class ClipControls extends BaseConsolePrinter implements HasControllsForPage {
@@ -26,55 +24,55 @@ public class ClipControls extends BaseConsolePrinter implements HasControllsForP
         return this.page;
     }
 
-    private final Predicate<Softstep1Pad> arePadsForNavigation = (
-            pad ->
-            pad.getNumber() == Page.PAD_INDICES.NAV_DOWN
-            || pad.getNumber() == Page.PAD_INDICES.NAV_LEFT
-            || pad.getNumber() == Page.PAD_INDICES.NAV_RIGHT
-            || pad.getNumber() == Page.PAD_INDICES.NAV_UP
+    private static final int NAVIGATION_PADS = HasControllsForPage.maskOf(
+            Page.PAD_INDICES.NAV_DOWN
+            , Page.PAD_INDICES.NAV_LEFT
+            , Page.PAD_INDICES.NAV_RIGHT
+            , Page.PAD_INDICES.NAV_UP
     );
-    private final Predicate<Softstep1Pad> arePadsForChannelstrip = (
-            pad ->
-                    pad.getNumber() == Page.PAD_INDICES.MUTE_PAD
-                            || pad.getNumber() == Page.PAD_INDICES.ARM_PAD
+    private static final int CHANNEL_STRIP_PADS = HasControllsForPage.maskOf(
+            Page.PAD_INDICES.MUTE_PAD
+            , Page.PAD_INDICES.ARM_PAD
     );
 
     @Override
-    public void processControlls(List<Softstep1Pad> pushedDownPads, ShortMidiMessage msg) {
+    public void processControlls(int pushedDownPads, List<Softstep1Pad> pads, ShortMidiMessage msg) {
 
-        if (processNavigationPads(getNavigationPads(pushedDownPads))) return;
+        if (processNavigationPads(pushedDownPads & NAVIGATION_PADS, pads)) return;
 
-        if (processChannelStripPads(getChannelStripPads(pushedDownPads), msg)) return;
+        if (processChannelStripPads(pushedDownPads & CHANNEL_STRIP_PADS, pads, msg)) return;
 
-        List<Softstep1Pad> padsToConsiderForCLipLaunch = getCLipLaunchPads(pushedDownPads);
+        // In case of firing up clips they must not be pads without a grid cell
+        // or bitwig will complain and shutdown, the grid knows which pads show a cell
+        int padsToConsiderForCLipLaunch = pushedDownPads & apiManager.getClipGrid().getPadMask();
 
-        padsToConsiderForCLipLaunch.stream()
-                .filter(p -> p.gestures().isLongPress())
-                .forEach(pad -> {
-                            apiManager.getApiToHost().deleteSlotAt(pad.getNumber());
-                            pad.gestures().clearLongPressEvent(); // Clear the long press event
-                            pad.notifyControlConsumed();
-//                            p("! Delete slot by: " + pad);
-                        }
-                );
+        for (int mask = padsToConsiderForCLipLaunch; mask != 0; mask &= mask - 1) {
+            Softstep1Pad pad = pads.get(Integer.numberOfTrailingZeros(mask));
+            if (pad.gestures().isLongPress()) {
+                apiManager.getApiToHost().deleteSlotAt(pad.getNumber());
+                pad.gestures().clearLongPressEvent(); // Clear the long press event
+                pad.notifyControlConsumed();
+//                p("! Delete slot by: " + pad);
+            }
+        }
         ///// Single press for clip launch (clean edge detection)
-        padsToConsiderForCLipLaunch.stream()
-                .filter(p -> p.shouldFireFootOnAction())
-                .forEach(pad -> {
-                            pad.markAsHasFired();
-                            apiManager.getApiToHost().fireSlotAt(pad.getNumber());
-                            pad.notifyControlConsumed();
-//                            p("! Fire slot by: " + pad);
-                        }
-                );
+        for (int mask = padsToConsiderForCLipLaunch; mask != 0; mask &= mask - 1) {
+            Softstep1Pad pad = pads.get(Integer.numberOfTrailingZeros(mask));
+            if (pad.shouldFireFootOnAction()) {
+                pad.markAsHasFired();
+                apiManager.getApiToHost().fireSlotAt(pad.getNumber());
+                pad.notifyControlConsumed();
+//                p("! Fire slot by: " + pad);
+            }
+        }
     }
 
-    private boolean processNavigationPads(List<Softstep1Pad> padsToConsiderForNavigation) {
-        List<Softstep1Pad> navPads = padsToConsiderForNavigation.stream()
-                .filter(p -> p.shouldFireFootOnAction())
-                .collect(Collectors.toList());
+    private boolean processNavigationPads(int padsToConsiderForNavigation, List<Softstep1Pad> pads) {
+        for (int mask = padsToConsiderForNavigation; mask != 0; mask &= mask - 1) {
+            Softstep1Pad p = pads.get(Integer.numberOfTrailingZeros(mask));
+            // Held nav pads keep scrolling
+            if (!p.shouldFireFootOnAction() && !p.gestures().isHoldRepeat()) continue;
 
-        for (Softstep1Pad p : navPads) {
             switch (p.getNumber()) {
                 case Page.PAD_INDICES.NAV_UP:
                     p.markAsHasFired();
@@ -101,13 +99,12 @@ public class ClipControls extends BaseConsolePrinter implements HasControllsForP
         return false;
     }
 
-    private boolean processChannelStripPads(List<Softstep1Pad> padsToConsiderForChannelStrip, ShortMidiMessage msg) {
+    private boolean processChannelStripPads(int padsToConsiderForChannelStrip, List<Softstep1Pad> pads, ShortMidiMessage msg) {
         // Check for long press actions first
-        List<Softstep1Pad> longPressChannelPads = padsToConsiderForChannelStrip.stream()
-                .filter(p -> p.gestures().isLongPress())
-                .collect(Collectors.toList());
-                
-        for (Softstep1Pad p : longPressChannelPads) {
+        for (int mask = padsToConsiderForChannelStrip; mask != 0; mask &= mask - 1) {
+            Softstep1Pad p = pads.get(Integer.numberOfTrailingZeros(mask));
+            if (!p.gestures().isLongPress()) continue;
+
             switch (p.getNumber()) {
                 case Page.PAD_INDICES.MUTE_PAD:
                     // Long press = stop all clips on current track
@@ -125,51 +122,26 @@ public class ClipControls extends BaseConsolePrinter implements HasControllsForP
         }
         
         // Check for short press actions
-        List<Softstep1Pad> channelPads = padsToConsiderForChannelStrip.stream()
-                .filter(p -> p.shouldFireFootOnAction())
-                .collect(Collectors.toList());
-
-            for (Softstep1Pad p : channelPads) {
-                switch (p.getNumber()) {
-                    case Page.PAD_INDICES.MUTE_PAD:
-                        // Simple press = mute/unmute toggle
-                        p.markAsHasFired();
-                        apiManager.getApiToHost().muteTrack();
-                        p.notifyControlConsumed();
-                        return true;
-                    case Page.PAD_INDICES.ARM_PAD:
-                        // Simple press = arm/disarm toggle
-                        p.markAsHasFired();
-                        apiManager.getApiToHost().armTrack();
-                        p.notifyControlConsumed();
-                        return true;
-                }
+        for (int mask = padsToConsiderForChannelStrip; mask != 0; mask &= mask - 1) {
+            Softstep1Pad p = pads.get(Integer.numberOfTrailingZeros(mask));
+            if (!p.shouldFireFootOnAction()) continue;
 
+            switch (p.getNumber()) {
+                case Page.PAD_INDICES.MUTE_PAD:
+                    // Simple press = mute/unmute toggle
+                    p.markAsHasFired();
+                    apiManager.getApiToHost().muteTrack();
+                    p.notifyControlConsumed();
+                    return true;
+                case Page.PAD_INDICES.ARM_PAD:
+                    // Simple press = arm/disarm toggle
+                    p.markAsHasFired();
+                    apiManager.getApiToHost().armTrack();
+                    p.notifyControlConsumed();
+                    return true;
+            }
         }
 
         return false;
     }
-
-    private List<Softstep1Pad> getCLipLaunchPads(List<Softstep1Pad> pushedDownPads) {
-        List<Softstep1Pad> padsToConsiderForCLipLaunch = pushedDownPads.stream()
-                // In case of firing up clips they must not pads with higher
-                // indexes as there are scenes or bitwig will complain and shutdown
-                // If done this way implies the layout, clip pads are from 1 to 4
-                .filter(pad -> pad.getNumber() < ApiManager.NUM_SCENES)
-                .collect(Collectors.toList());
-        return padsToConsiderForCLipLaunch;
-    }
-
-
-    protected List<Softstep1Pad> getNavigationPads(List<Softstep1Pad> pushedDownPads) {
-        return pushedDownPads.stream()
-                .filter(arePadsForNavigation)
-                .collect(Collectors.toList());
-    }
-
-    protected List<Softstep1Pad> getChannelStripPads(List<Softstep1Pad> pushedDownPads) {
-        return pushedDownPads.stream()
-                .filter(arePadsForChannelstrip)
-                .collect(Collectors.toList());
-    }
 }
@@ -3,6 +3,7 @@ package de.davidrival.softstep.controller;
 import com.bitwig.extension.api.util.midi.ShortMidiMessage;
 import com.bitwig.extension.controller.api.ControllerHost;
 import de.davidrival.softstep.api.BaseConsolePrinter;
+import de.davidrival.softstep.api.HostScheduler;
 import de.davidrival.softstep.hardware.SoftstepHardwareBase;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,14 +15,30 @@ import java.util.*;
 @Setter
 public class Controls extends BaseConsolePrinter {
 
+    // Navigation pad with 4 directions
+    // North: data1=82, East: data1=81, South: data1=83, West: data1=80
+    public static final int[] NAV_PAD_ADDRESSES = {80, 81, 82, 83};
+
     List<Softstep1Pad> pads;
 
     ControllerHost host;
 
-    public Controls(ControllerHost hostOrNull) {
+    HostScheduler scheduler;
+
+    /** data1 → pad corner / nav direction, filled while the pads are made */
+    final PadRoutingTable routing = new PadRoutingTable();
+
+    /** corner pressures and aggregates of all pads */
+    final PadStateStore padStateStore = new PadStateStore();
+
+    public Controls(ControllerHost hostOrNull, HostScheduler schedulerOrNull) {
         super(hostOrNull);
         this.host = hostOrNull;
+        this.scheduler = schedulerOrNull;
         pads = init();
+        for (int i = 0; i < NAV_PAD_ADDRESSES.length; i++) {
+            routing.mapNavDirection(NAV_PAD_ADDRESSES[i], i);
+        }
     }
 
 
@@ -51,29 +68,35 @@ public class Controls extends BaseConsolePrinter {
      * @return a fresh and shiny pad
      */
     private Softstep1Pad makePad(int number, int[] ccAddresses) {
-        Map<Integer, Integer> tmpDirections = new HashMap<>(4);
-        
         // In host mode, each pad sends pressure values on 4 specific addresses
         // Hardware sends non-consecutive addresses per pad direction
-        for (int cc : ccAddresses) {
-            tmpDirections.put(cc, -1);
+        for (int corner = 0; corner < ccAddresses.length; corner++) {
+            routing.mapPadCorner(ccAddresses[corner], number, corner);
+        }
+        return new Softstep1Pad(number, ccAddresses, padStateStore, scheduler, host);
+    }
+
+    /**
+     * @param listener gets all deadline gestures of all pads
+     */
+    public void setDeadlineGestureListener(Softstep1Pad.DeadlineGestureListener listener) {
+        for (Softstep1Pad pad : pads) {
+            pad.setDeadlineGestureListener(listener);
         }
-        return new Softstep1Pad(number, tmpDirections, host);
     }
 
     public void update(ShortMidiMessage msg) {
   //                      p("-------------------------");
   //                      p("incoming midi: " + msg);
         if (msg.getStatusByte() == SoftstepHardwareBase.STATUS_BYTE) {
-            pads.stream().filter(pad -> pad.inRange(msg.getData1()))
-                    .findFirst().ifPresent(pad -> {
-
-   //                     p("matched pad: " + pad);
-   //                     p("-------------------------");
+            int route = routing.routeOf(msg.getData1());
+            if (PadRoutingTable.isPad(route)) {
 
-                        pad.update(msg.getData1(), msg.getData2());
+   //             p("matched pad: " + pads.get(PadRoutingTable.padIndexOf(route)));
+   //             p("-------------------------");
 
-                    });
+                pads.get(PadRoutingTable.padIndexOf(route)).update(PadRoutingTable.cornerOf(route), msg.getData2());
+            }
         }
     }
 }
@@ -0,0 +1,155 @@
+package de.davidrival.softstep.controller;
+
+import de.davidrival.softstep.api.HostScheduler;
+import de.davidrival.softstep.hardware.MidiOutputScheduler;
+import de.davidrival.softstep.hardware.SoftstepHardwareBase;
+
+/**
+ * Decides what the 4 character display shows.
+ * <p>
+ * Text comes in layers, the topmost layer with text wins: a transient notification which
+ * disappears after its time to live, the name of the selected BWS track (only while its
+ * page is active) and the page name. Text longer than the display scrolls as a marquee
+ * at a fixed frame rate. Frames are only written if they differ from the previous one,
+ * the output scheduler then sends just the characters which changed.
+ * <p>
+ * Runs on the host thread, timing is done by the {@link HostScheduler}.
+ */
+public class DisplayCompositor {
+
+    public enum Layer {
+        NOTIFICATION, BWS_TRACK, PAGE
+    }
+
+    public static final int DISPLAY_CHARS = MidiOutputScheduler.DISPLAY_CHARS;
+    /** Time per marquee step, bounds the display traffic of long text to a few CCs per second */
+    public static final int MARQUEE_FRAME_MS = 300;
+    public static final int DEFAULT_NOTIFICATION_TTL_MS = 1500;
+
+    private static final String MARQUEE_GAP = "  ";
+
+    private final SoftstepHardwareBase hardware;
+    private final HostScheduler scheduler;
+
+    private final String[] layers = new String[Layer.values().length];
+    private boolean bwsTrackVisible = false;
+
+    private HostScheduler.Task notificationExpiry = null;
+    private HostScheduler.Task marqueeTask = null;
+
+    /** Text of the top layer and the frame of it on the display */
+    private String shownText = null;
+    private String lastFrame = null;
+    private int marqueeOffset = 0;
+
+    public DisplayCompositor(SoftstepHardwareBase hardware, HostScheduler scheduler) {
+        this.hardware = hardware;
+        this.scheduler = scheduler;
+    }
+
+    public void setPageName(String pageName) {
+        setLayer(Layer.PAGE, pageName);
+    }
+
+    /**
+     * @param trackName name of the selected BWS track, null if there is none
+     */
+    public void setBwsTrackName(String trackName) {
+        setLayer(Layer.BWS_TRACK, trackName);
+    }
+
+    /**
+     * The BWS track only matters on the page which cycles through the BWS tracks.
+     */
+    public void setBwsTrackVisible(boolean visible) {
+        if (bwsTrackVisible == visible) return;
+        bwsTrackVisible = visible;
+        render();
+    }
+
+    public void showNotification(String text) {
+        showNotification(text, DEFAULT_NOTIFICATION_TTL_MS);
+    }
+
+    /**
+     * Shows the text on top of everything else until the time to live passed.
+     */
+    public void showNotification(String text, int ttlMs) {
+        if (notificationExpiry != null) {
+            notificationExpiry.cancel();
+        }
+        notificationExpiry = scheduler.schedule(() -> {
+            notificationExpiry = null;
+            setLayer(Layer.NOTIFICATION, null);
+        }, ttlMs);
+        setLayer(Layer.NOTIFICATION, text);
+    }
+
+    private void setLayer(Layer layer, String text) {
+        layers[layer.ordinal()] = text == null || text.isEmpty() ? null : text;
+        render();
+    }
+
+    private String topText() {
+        for (Layer layer : Layer.values()) {
+            if (layer == Layer.BWS_TRACK && !bwsTrackVisible) continue;
+            String text = layers[layer.ordinal()];
+            if (text != null) return text;
+        }
+        return "";
+    }
+
+    private void render() {
+        String text = topText();
+        if (!text.equals(shownText)) {
+            shownText = text;
+            marqueeOffset = 0;
+            updateMarquee(text.length() > DISPLAY_CHARS);
+        }
+        writeFrame();
+    }
+
+    private void updateMarquee(boolean scrolling) {
+        if (scrolling && marqueeTask == null) {
+            marqueeTask = scheduler.scheduleRepeating(this::onMarqueeFrame
+                    , MARQUEE_FRAME_MS, MARQUEE_FRAME_MS, HostScheduler.FOREVER);
+        } else if (!scrolling && marqueeTask != null) {
+            marqueeTask.cancel();
+            marqueeTask = null;
+        }
+    }
+
+    private void onMarqueeFrame() {
+        marqueeOffset = (marqueeOffset + 1) % (shownText.length() + MARQUEE_GAP.length());
+        writeFrame();
+    }
+
+    private void writeFrame() {
+        String frame = frameOf(shownText, marqueeOffset);
+        if (frame.equals(lastFrame)) return;
+        lastFrame = frame;
+        hardware.displayText(frame);
+    }
+
+    private static String frameOf(String text, int offset) {
+        if (text.length() <= DISPLAY_CHARS) {
+            return sanitize(text);
+        }
+        String loop = text + MARQUEE_GAP;
+        StringBuilder frame = new StringBuilder(DISPLAY_CHARS);
+        for (int i = 0; i < DISPLAY_CHARS; i++) {
+            frame.append(loop.charAt((offset + i) % loop.length()));
+        }
+        return sanitize(frame.toString());
+    }
+
+    /** The display only knows ASCII */
+    private static String sanitize(String text) {
+        StringBuilder ascii = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            ascii.append(c >= 0x20 && c < 0x7F ? c : '?');
+        }
+        return ascii.toString();
+    }
+}
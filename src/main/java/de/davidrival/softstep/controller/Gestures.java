@@ -2,173 +2,246 @@ package de.davidrival.softstep.controller;
 
 import com.bitwig.extension.controller.api.ControllerHost;
 import de.davidrival.softstep.api.BaseConsolePrinter;
+import de.davidrival.softstep.api.HostScheduler;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
-
+/**
+ * Gesture recognizer of a single pad.
+ * <p>
+ * Press and release are derived from the pressure CCs. Time based gestures (long press,
+ * hold repeat) are deadlines on the {@link HostScheduler} and fire on the host thread exactly
+ * when they are due, the {@link DeadlineCallback} then hands the pad to the pages.
+ * No thread is created on the press path, a release simply cancels the pending deadline.
+ * <p>
+ * A double trigger (press shortly after the previous release) is detected and reported with the
+ * press, it is up to the pages to give it an action.
+ */
 @Getter
 @Setter
 @ToString
 public class Gestures extends BaseConsolePrinter {
 
     public enum GestureOffsets {
-        pressure, footOn, doubleTrigger, longPress
+        pressure, footOn, doubleTrigger, longPress, holdRepeat
     }
-    
+
     public enum PadState {
         IDLE,           // All corners below threshold
         INITIAL_PRESS,  // First press detected - can fire actions
         HELD,          // Foot held down - prevents retriggering
         RELEASING      // Transitioning back to IDLE
     }
-    
-    // Pressure profile for 4-corner analysis
-    public static class PressureProfile {
-        public final int maxCorner;
-        public final int totalPressure;
-        public final int activeCorners;
-        
-        public PressureProfile(Map<Integer, Integer> directions) {
-            this.maxCorner = directions.values().stream()
-                .mapToInt(Integer::intValue)
-                .max()
-                .orElse(0);
-            this.totalPressure = directions.values().stream()
-                .mapToInt(Integer::intValue)
-                .sum();
-            this.activeCorners = (int) directions.values().stream()
-                .mapToInt(Integer::intValue)
-                .filter(v -> v > 5)  // Count corners with significant pressure
-                .count();
+
+    // Pressure profile for 4-corner analysis, the aggregates are maintained by the PadStateStore
+    public static final class PressureProfile {
+
+        private PressureProfile() {
         }
-        
-        public boolean isValidPress() {
+
+        public static boolean isValidPress(int maxCorner, int activeCorners) {
             return maxCorner > 10 && activeCorners >= 1;
         }
-        
-        public boolean isCleanRelease() {
+
+        public static boolean isCleanRelease(int maxCorner, int totalPressure) {
             return maxCorner < 5 && totalPressure < 20;
         }
     }
 
+    /**
+     * Called on the host thread when a time based gesture came due without a new CC.
+     */
+    public interface DeadlineCallback {
+        void onDeadlineGesture();
+    }
+
+    public static final int LONG_PRESS_DELAY_MS = 900;
+    public static final int DOUBLE_TRIGGER_WINDOW_MS = 300;
+    /** 0 = hold repeat disabled */
+    public static final int HOLD_REPEAT_INTERVAL_MS = 0;
+
     // Clean state machine variables
     private PadState currentState = PadState.IDLE;
     private int currentPressure = 0;  // Current max pressure from all corners
-    
+
     // Events that can be detected
     private boolean footOnEvent = false;      // Single-fire press event
     private boolean longPressEvent = false;  // Long press detected
     private boolean footOffEvent = false;    // Single-fire release event
-    
-    // Timer for long press detection
-    private Timer longPressTimer = null;
-    private static final int LONG_PRESS_DELAY_MS = 900; // 1.5 seconds
+    private boolean doubleTriggerEvent = false;  // Press shortly after the previous release
+    private boolean holdRepeatEvent = false;     // Repeats after the long press while held
+
+    // Per pad timings, the long press delay is taken from the pad config if there is one
+    @ToString.Exclude
+    private PadConfigurationManager.PadConfig padConfig = null;
+    private int doubleTriggerWindowMs = DOUBLE_TRIGGER_WINDOW_MS;
+    private int holdRepeatIntervalMs = HOLD_REPEAT_INTERVAL_MS;
 
-    public Gestures(ControllerHost hostOrNull) {
+    // Deadline bookkeeping
+    @ToString.Exclude
+    private final HostScheduler scheduler;
+    @ToString.Exclude
+    private DeadlineCallback deadlineCallback = null;
+    @ToString.Exclude
+    private HostScheduler.Task pendingDeadline = null;
+    private long lastFootOffMs = 0;
+
+    public Gestures(HostScheduler schedulerOrNull, ControllerHost hostOrNull) {
         super(hostOrNull);
+        this.scheduler = schedulerOrNull;
     }
 
     public boolean set(Softstep1Pad pad) {
-        Map<Integer, Integer> dirs = pad.getDirections();
-        
+        PadStateStore store = pad.getStore();
+        int padIndex = pad.getNumber();
+
         // Clear previous events
         clearEvents();
-        
-        // Analyze pressure from all 4 corners
-        PressureProfile profile = new PressureProfile(dirs);
-        
+
+        // Pressure of all 4 corners, already aggregated by the store
+        int maxCorner = store.getMaxPressure(padIndex);
+
         // Update current pressure for UserControlls
-        currentPressure = profile.maxCorner;
-        
+        currentPressure = maxCorner;
+
         // Update state machine and generate events
-        PadState nextState = updateStateMachine(profile);
+        PadState nextState = updateStateMachine(
+                PressureProfile.isValidPress(maxCorner, store.getActiveCorners(padIndex)),
+                PressureProfile.isCleanRelease(maxCorner, store.getTotalPressure(padIndex)));
         currentState = nextState;
-        
+
         return true;
     }
-    
+
     private void clearEvents() {
         footOnEvent = false;
         footOffEvent = false;
+        doubleTriggerEvent = false;
+        holdRepeatEvent = false;
         // Don't clear longPressEvent here - it should persist until consumed
     }
-    
-    private PadState updateStateMachine(PressureProfile profile) {
+
+    private PadState updateStateMachine(boolean isValidPress, boolean isCleanRelease) {
         switch (currentState) {
             case IDLE:
-                if (profile.isValidPress()) {
+                if (isValidPress) {
                     footOnEvent = true;  // Fire press event
-                    startLongPressTimer();
+                    startPress();
                     return PadState.INITIAL_PRESS;
                 }
                 return PadState.IDLE;
-                
+
             case INITIAL_PRESS:
-                if (profile.isCleanRelease()) {
+                if (isCleanRelease) {
                     footOffEvent = true;  // Fire release event
-                    cancelLongPressTimer();
+                    endPress();
                     return PadState.IDLE;  // Direct transition to IDLE
                 }
                 // Move to HELD to prevent re-triggering
                 return PadState.HELD;
-                
+
             case HELD:
-                if (profile.isCleanRelease()) {
+                if (isCleanRelease) {
                     footOffEvent = true;  // Fire release event
-                    cancelLongPressTimer();
+                    endPress();
                     return PadState.IDLE;  // Direct transition to IDLE
                 }
                 return PadState.HELD;
-                
+
             case RELEASING:
                 // This state is no longer needed with clean release detection
                 return PadState.IDLE;
-                
+
             default:
                 return PadState.IDLE;
         }
     }
-    
-    private void startLongPressTimer() {
-        cancelLongPressTimer();  // Cancel any existing timer
-        
-        longPressTimer = new Timer();
-        longPressTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                longPressEvent = true;  // Set long press event
-            }
-        }, LONG_PRESS_DELAY_MS);
-    }
-    
-    private void cancelLongPressTimer() {
-        if (longPressTimer != null) {
-            longPressTimer.cancel();
-            longPressTimer = null;
+
+    private void startPress() {
+        long now = now();
+        doubleTriggerEvent = lastFootOffMs > 0 && now - lastFootOffMs <= doubleTriggerWindowMs;
+
+        // A new press invalidates deadlines and a long press nobody consumed
+        cancelPendingDeadline();
+        longPressEvent = false;
+
+        scheduleDeadline(getLongPressDelayMs(), GestureOffsets.longPress);
+    }
+
+    private void endPress() {
+        cancelPendingDeadline();
+        lastFootOffMs = now();
+    }
+
+    /**
+     * Press and release times are on the clock of the deadlines
+     */
+    private long now() {
+        return scheduler != null ? scheduler.now() : System.currentTimeMillis();
+    }
+
+    private void scheduleDeadline(int delayMs, GestureOffsets gesture) {
+        if (scheduler == null || delayMs <= 0) return;
+
+        pendingDeadline = scheduler.schedule(() -> onDeadline(gesture), delayMs);
+    }
+
+    private void cancelPendingDeadline() {
+        if (pendingDeadline != null) {
+            pendingDeadline.cancel();
+            pendingDeadline = null;
         }
     }
-    
+
+    private void onDeadline(GestureOffsets gesture) {
+        pendingDeadline = null;
+        if (currentState == PadState.IDLE) return;
+
+        // Edge events belong to the CC which caused them, never deliver them twice
+        clearEvents();
+
+        if (gesture == GestureOffsets.longPress) {
+            longPressEvent = true;
+        } else {
+            holdRepeatEvent = true;
+        }
+        scheduleDeadline(holdRepeatIntervalMs, GestureOffsets.holdRepeat);
+
+        if (deadlineCallback != null) {
+            deadlineCallback.onDeadlineGesture();
+        }
+    }
+
+    public int getLongPressDelayMs() {
+        return padConfig != null ? padConfig.longPressDelayMs : LONG_PRESS_DELAY_MS;
+    }
+
     // Public getters for events
     public boolean isFootOn() {
         return footOnEvent;
     }
-    
+
     public boolean isLongPress() {
         return longPressEvent;
     }
-    
+
     public boolean isFootOff() {
         return footOffEvent;
     }
-    
+
+    public boolean isDoubleTrigger() {
+        return doubleTriggerEvent;
+    }
+
+    public boolean isHoldRepeat() {
+        return holdRepeatEvent;
+    }
+
     public int getPressure() {
         return currentPressure;
     }
-    
+
     // Method to clear long press event after it's been consumed
     public void clearLongPressEvent() {
         longPressEvent = false;
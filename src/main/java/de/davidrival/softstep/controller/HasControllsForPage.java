@@ -9,7 +9,19 @@ interface HasControllsForPage {
 
     Page getPage();
 
-    void processControlls(List<Softstep1Pad> pushedDownPads, ShortMidiMessage msg);
+    /**
+     * @param pushedDownPads bitmask of the pads with unconsumed input, bit n = pad number n
+     * @param pads all pads of the controller, indexed by pad number
+     * @param msg the midi message which caused the update
+     */
+    void processControlls(int pushedDownPads, List<Softstep1Pad> pads, ShortMidiMessage msg);
+
+    static int maskOf(int... padNumbers) {
+        int mask = 0;
+        for (int padNumber : padNumbers) {
+            mask |= 1 << padNumber;
+        }
+        return mask;
+    }
 
 }
-
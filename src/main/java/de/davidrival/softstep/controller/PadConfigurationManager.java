@@ -1,7 +1,13 @@
 package de.davidrival.softstep.controller;
 
 import com.bitwig.extension.controller.api.*;
+import de.davidrival.softstep.api.ApiManager;
+import de.davidrival.softstep.api.ClipGrid;
 import de.davidrival.softstep.debug.DebugLogger;
+import de.davidrival.softstep.debug.MappedLogSink;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class PadConfigurationManager {
     
@@ -17,6 +23,7 @@ public class PadConfigurationManager {
         public boolean inverted = false;
         public boolean longPressEnabled = false;
         public int longPressValue = 0;
+        public int longPressDelayMs = Gestures.LONG_PRESS_DELAY_MS;
         
         public PadConfig() {}
         
@@ -33,6 +40,7 @@ public class PadConfigurationManager {
     
     private static final int NUM_PADS = 10;
     private static final String[] MODE_OPTIONS = {"pressure", "momentary", "toggle", "increment"};
+    private static final String[] BWS_DISCOVERY_OPTIONS = {"128 Tracks", "Windowed", "Windowed with Groups"};
     
     private final ControllerHost host;
     private final SettableEnumValue[] padModeSettings;
@@ -42,6 +50,7 @@ public class PadConfigurationManager {
     private final SettableBooleanValue[] padInvertedSettings;
     private final SettableBooleanValue[] padLongPressEnabledSettings;
     private final SettableStringValue[] padLongPressSettings;
+    private final SettableStringValue[] padLongPressDelaySettings;
     
     private final PadConfig[] currentConfigs;
     
@@ -54,6 +63,16 @@ public class PadConfigurationManager {
     private final SettableBooleanValue debugPerfSetting;
     private final SettableBooleanValue debugUserSetting;
     private final SettableBooleanValue debugClipSetting;
+    private final SettableBooleanValue debugToFileSetting;
+
+    // Clip grid size, the banks are created with it so changes apply after restarting the extension
+    private final SettableRangedValue gridTracksSetting;
+    private final SettableRangedValue gridScenesSetting;
+    // Large projects are scanned with a sliding bank instead of one bank of 128 tracks,
+    // optionally over the flat track list including tracks in groups
+    private final SettableEnumValue bwsDiscoverySetting;
+    // Pressure changes smaller than this aren't sent to the user controls
+    private final SettableRangedValue pressureDeadbandSetting;
     
     public PadConfigurationManager(ControllerHost host) {
         this.host = host;
@@ -64,6 +83,7 @@ public class PadConfigurationManager {
         this.padInvertedSettings = new SettableBooleanValue[NUM_PADS];
         this.padLongPressEnabledSettings = new SettableBooleanValue[NUM_PADS];
         this.padLongPressSettings = new SettableStringValue[NUM_PADS];
+        this.padLongPressDelaySettings = new SettableStringValue[NUM_PADS];
         this.currentConfigs = new PadConfig[NUM_PADS];
         
         // Initialize debug settings
@@ -72,12 +92,36 @@ public class PadConfigurationManager {
         this.debugPerfSetting = preferences.getBooleanSetting("Debug PERF Mode", "Debug Settings", false);
         this.debugUserSetting = preferences.getBooleanSetting("Debug USER Mode", "Debug Settings", false);
         this.debugClipSetting = preferences.getBooleanSetting("Debug CLIP Mode", "Debug Settings", false);
+        this.debugToFileSetting = preferences.getBooleanSetting("Debug Log to File", "Debug Settings", false);
         
         // Mark debug settings as interested
         debugCommonSetting.markInterested();
         debugPerfSetting.markInterested();
         debugUserSetting.markInterested();
         debugClipSetting.markInterested();
+        debugToFileSetting.markInterested();
+
+        // Logging reads the flags from a snapshot, keep it in sync with the preferences
+        debugCommonSetting.addValueObserver(value -> publishDebugFlags());
+        debugPerfSetting.addValueObserver(value -> publishDebugFlags());
+        debugUserSetting.addValueObserver(value -> publishDebugFlags());
+        debugClipSetting.addValueObserver(value -> publishDebugFlags());
+        publishDebugFlags();
+        debugToFileSetting.addValueObserver(this::setDebugToFile);
+
+        this.gridTracksSetting = preferences.getNumberSetting("Tracks (restart)", "Clip Grid"
+                , 1, ClipGrid.MAX_TRACKS, 1, "", ApiManager.NUM_TRACKS);
+        this.gridScenesSetting = preferences.getNumberSetting("Scenes (restart)", "Clip Grid"
+                , 1, ClipGrid.MAX_SCENES, 1, "", ApiManager.NUM_SCENES);
+        // read while the banks are created, only values marked interested can be read
+        gridTracksSetting.markInterested();
+        gridScenesSetting.markInterested();
+        this.bwsDiscoverySetting = preferences.getEnumSetting("Discovery (restart)", "BWS Tracks"
+                , BWS_DISCOVERY_OPTIONS, BWS_DISCOVERY_OPTIONS[0]);
+        bwsDiscoverySetting.markInterested();
+        this.pressureDeadbandSetting = preferences.getNumberSetting("Pressure Deadband", "User Controls"
+                , 0, 16, 1, "", 2);
+        pressureDeadbandSetting.markInterested();
         
         setupPreferences();
         setupObservers();
@@ -110,6 +154,9 @@ public class PadConfigurationManager {
                 
             padLongPressSettings[i] = preferences.getStringSetting(
                 "Long Press Value", padName, 8, "0");
+                
+            padLongPressDelaySettings[i] = preferences.getStringSetting(
+                "Long Press Delay (ms)", padName, 8, String.valueOf(Gestures.LONG_PRESS_DELAY_MS));
             
             padModeSettings[i].markInterested();
             padMinSettings[i].markInterested();
@@ -118,6 +165,7 @@ public class PadConfigurationManager {
             padInvertedSettings[i].markInterested();
             padLongPressEnabledSettings[i].markInterested();
             padLongPressSettings[i].markInterested();
+            padLongPressDelaySettings[i].markInterested();
             
             currentConfigs[i] = new PadConfig();
             updateConfigFromSettings(padIndex);
@@ -193,6 +241,11 @@ public class PadConfigurationManager {
                 updateConfigFromSettings(padIndex);
                 DebugLogger.user(host, this, "Pad " + (padIndex + 1) + " long press value changed to: '" + value + "'");
             });
+            
+            padLongPressDelaySettings[i].addValueObserver(value -> {
+                updateConfigFromSettings(padIndex);
+                DebugLogger.user(host, this, "Pad " + (padIndex + 1) + " long press delay changed to: '" + value + "'");
+            });
         }
         
     }
@@ -226,6 +279,7 @@ public class PadConfigurationManager {
         String maxString = padMaxSettings[padIndex].get();
         String stepString = padStepSettings[padIndex].get();
         String longPressString = padLongPressSettings[padIndex].get();
+        String longPressDelayString = padLongPressDelaySettings[padIndex].get();
         
         config.min = parseIntegerValue(minString, 0, 127, 0, "Min Value", padIndex);
         config.max = parseIntegerValue(maxString, 0, 127, 127, "Max Value", padIndex);
@@ -237,12 +291,14 @@ public class PadConfigurationManager {
         config.inverted = padInvertedSettings[padIndex].get();
         config.longPressEnabled = padLongPressEnabledSettings[padIndex].get();
         config.longPressValue = parseIntegerValue(longPressString, 0, 127, 0, "Long Press Value", padIndex);
+        config.longPressDelayMs = parseIntegerValue(longPressDelayString, 100, 5000, Gestures.LONG_PRESS_DELAY_MS, "Long Press Delay (ms)", padIndex);
         
         // Debug logging
         DebugLogger.user(host, this, "Pad " + padIndex + " config updated - min:" + config.min + 
                     " max:" + config.max + " stepSize:" + config.stepSize + 
                     " mode:" + config.mode + " inverted:" + config.inverted +
-                    " longPressEnabled:" + config.longPressEnabled + " longPressValue:" + config.longPressValue);
+                    " longPressEnabled:" + config.longPressEnabled + " longPressValue:" + config.longPressValue +
+                    " longPressDelayMs:" + config.longPressDelayMs);
         
         if (config.min >= config.max) {
             config.max = config.min + 1;
@@ -280,6 +336,26 @@ public class PadConfigurationManager {
         DebugLogger.user(host, this, "All pads reset to default settings");
     }
     
+    public int getGridTracks() {
+        return (int) Math.round(gridTracksSetting.getRaw());
+    }
+
+    public int getGridScenes() {
+        return (int) Math.round(gridScenesSetting.getRaw());
+    }
+
+    public boolean isWindowedBwsDiscovery() {
+        return !BWS_DISCOVERY_OPTIONS[0].equals(bwsDiscoverySetting.get());
+    }
+
+    public boolean isGroupAwareBwsDiscovery() {
+        return BWS_DISCOVERY_OPTIONS[2].equals(bwsDiscoverySetting.get());
+    }
+
+    public int getPressureDeadband() {
+        return (int) Math.round(pressureDeadbandSetting.getRaw());
+    }
+
     public int getBurstCount() {
         return BURST_COUNT;
     }
@@ -288,6 +364,27 @@ public class PadConfigurationManager {
         return BURST_DELAY_MS;
     }
     
+    private void publishDebugFlags() {
+        DebugLogger.updateFlags(debugCommonSetting.get(), debugPerfSetting.get()
+                , debugUserSetting.get(), debugClipSetting.get());
+    }
+
+    private void setDebugToFile(boolean toFile) {
+        if (toFile == (DebugLogger.getSink() != null)) return;
+        if (!toFile) {
+            DebugLogger.setSink(null);
+            DebugLogger.always(host, "Debug logging to the console");
+            return;
+        }
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "BWSSoftstepper");
+        try {
+            DebugLogger.setSink(new MappedLogSink(directory));
+            DebugLogger.always(host, "Debug logging to " + directory);
+        } catch (IOException e) {
+            DebugLogger.always(host, "Debug log file can't be opened, logging to the console: " + e.getMessage());
+        }
+    }
+
     // Debug flag getters
     public boolean isDebugCommon() {
         return debugCommonSetting.get();
@@ -0,0 +1,78 @@
+package de.davidrival.softstep.controller;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed lookup from an incoming CC data1 to what it addresses on the Softstep.
+ * <p>
+ * Every one of the 128 possible data1 values maps to a single packed int:
+ * either a pad corner (pad index + corner slot), a direction of the navigation pad
+ * or {@link #UNMAPPED}. Routing a message is therefore one array access,
+ * no streams, Optionals or boxing involved.
+ * <p>
+ * Route layout: bit 8 set = navigation pad, bits 2-7 = pad index, bits 0-1 = corner / direction
+ */
+public class PadRoutingTable {
+
+    public static final int UNMAPPED = -1;
+    public static final int CORNERS_PER_PAD = 4;
+
+    private static final int TABLE_SIZE = 128;
+    private static final int NAV_FLAG = 0x100;
+    private static final int SLOT_MASK = 0x3;
+    private static final int PAD_SHIFT = 2;
+
+    private final int[] routes = new int[TABLE_SIZE];
+
+    public PadRoutingTable() {
+        Arrays.fill(routes, UNMAPPED);
+    }
+
+    /**
+     * @param data1 the CC address the hardware sends for this corner
+     * @param padIndex the pad number (0-9)
+     * @param corner the corner slot of the pad (0-3)
+     */
+    public void mapPadCorner(int data1, int padIndex, int corner) {
+        routes[data1] = (padIndex << PAD_SHIFT) | (corner & SLOT_MASK);
+    }
+
+    /**
+     * @param data1 the CC address the hardware sends for this direction of the nav pad
+     * @param direction the direction slot (0-3)
+     */
+    public void mapNavDirection(int data1, int direction) {
+        routes[data1] = NAV_FLAG | (direction & SLOT_MASK);
+    }
+
+    /**
+     * @param data1 of an incoming CC
+     * @return the packed route or {@link #UNMAPPED} if nothing listens on this address
+     */
+    public int routeOf(int data1) {
+        if (data1 < 0 || data1 >= TABLE_SIZE) {
+            return UNMAPPED;
+        }
+        return routes[data1];
+    }
+
+    public static boolean isPad(int route) {
+        return route >= 0 && (route & NAV_FLAG) == 0;
+    }
+
+    public static boolean isNav(int route) {
+        return route >= 0 && (route & NAV_FLAG) != 0;
+    }
+
+    public static int padIndexOf(int route) {
+        return (route & ~NAV_FLAG) >> PAD_SHIFT;
+    }
+
+    public static int cornerOf(int route) {
+        return route & SLOT_MASK;
+    }
+
+    public static int navDirectionOf(int route) {
+        return route & SLOT_MASK;
+    }
+}
@@ -0,0 +1,111 @@
+package de.davidrival.softstep.controller;
+
+import java.util.Arrays;
+
+/**
+ * Primitive state of all pads of the Softstep, kept as struct of arrays.
+ * <p>
+ * The corner pressures of every pad live in one flat int array (pad * 4 + corner).
+ * Max, sum and the number of active corners are maintained incrementally on each
+ * write, so reading a pads pressure profile costs nothing and the whole pressure
+ * path runs without boxing or allocation.
+ */
+public class PadStateStore {
+
+    public static final int NUM_PADS = 10;
+    public static final int CORNERS = PadRoutingTable.CORNERS_PER_PAD;
+
+    /** Corners with more pressure than this count as active */
+    public static final int ACTIVE_CORNER_THRESHOLD = 5;
+
+    /** Value of a corner before the hardware reported anything */
+    public static final int UNKNOWN = -1;
+
+    private final int[] pressures = new int[NUM_PADS * CORNERS];
+    private final int[] maxPressure = new int[NUM_PADS];
+    private final int[] totalPressure = new int[NUM_PADS];
+    private final int[] activeCorners = new int[NUM_PADS];
+
+    /** Bit n is set while pad n has input which was not consumed by the pages yet */
+    private int usedPadsMask = 0;
+
+    public PadStateStore() {
+        Arrays.fill(pressures, UNKNOWN);
+    }
+
+    /**
+     * Writes the pressure of one corner and updates the aggregates of its pad.
+     *
+     * @param pad pad number (0-9)
+     * @param corner corner slot (0-3)
+     * @param value pressure as sent by the hardware (0-127)
+     * @return true if the value differs from the stored one
+     */
+    public boolean set(int pad, int corner, int value) {
+        int slot = pad * CORNERS + corner;
+        int old = pressures[slot];
+        if (old == value) {
+            return false;
+        }
+        pressures[slot] = value;
+
+        int oldPressure = Math.max(0, old);
+        int newPressure = Math.max(0, value);
+
+        totalPressure[pad] += newPressure - oldPressure;
+        activeCorners[pad] += (newPressure > ACTIVE_CORNER_THRESHOLD ? 1 : 0)
+                - (oldPressure > ACTIVE_CORNER_THRESHOLD ? 1 : 0);
+
+        if (newPressure >= maxPressure[pad]) {
+            maxPressure[pad] = newPressure;
+        } else if (oldPressure == maxPressure[pad]) {
+            // the former max corner went down, one of the other 3 might be higher now
+            maxPressure[pad] = recalcMax(pad);
+        }
+        return true;
+    }
+
+    private int recalcMax(int pad) {
+        int max = 0;
+        int base = pad * CORNERS;
+        for (int c = 0; c < CORNERS; c++) {
+            max = Math.max(max, pressures[base + c]);
+        }
+        return max;
+    }
+
+    public void markUsed(int pad) {
+        usedPadsMask |= 1 << pad;
+    }
+
+    public void markConsumed(int pad) {
+        usedPadsMask &= ~(1 << pad);
+    }
+
+    public boolean isUsed(int pad) {
+        return (usedPadsMask & (1 << pad)) != 0;
+    }
+
+    /**
+     * @return bitmask of all pads which have unconsumed input, bit n = pad n
+     */
+    public int getUsedPadsMask() {
+        return usedPadsMask;
+    }
+
+    public int getPressure(int pad, int corner) {
+        return pressures[pad * CORNERS + corner];
+    }
+
+    public int getMaxPressure(int pad) {
+        return maxPressure[pad];
+    }
+
+    public int getTotalPressure(int pad) {
+        return totalPressure[pad];
+    }
+
+    public int getActiveCorners(int pad) {
+        return activeCorners[pad];
+    }
+}
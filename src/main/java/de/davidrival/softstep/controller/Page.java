@@ -1,7 +1,10 @@
 package de.davidrival.softstep.controller;
 
+import de.davidrival.softstep.api.ClipGrid;
+import de.davidrival.softstep.api.SubscriptionManager;
 import de.davidrival.softstep.hardware.LedColor;
 import de.davidrival.softstep.hardware.LedLight;
+import de.davidrival.softstep.hardware.OutputLane;
 import lombok.ToString;
 
 
@@ -77,6 +80,40 @@ public enum Page {
         this.ledStates = initialLedStates;
     }
 
+    /**
+     * @return the {@link SubscriptionManager} features the host has to send while this page is shown
+     */
+    public int subscriptionFeatures() {
+        switch (this) {
+            case CLIP:
+                return SubscriptionManager.CLIP_STATE | SubscriptionManager.CHANNEL_STRIP;
+            case PERF:
+                return SubscriptionManager.CLIP_STATE | SubscriptionManager.CHANNEL_STRIP | SubscriptionManager.BWS_TRACKS;
+            default:
+                // USER pads only send to user controls
+                return 0;
+        }
+    }
+
+    /**
+     * Output priority of a pads LED on this page, clip state goes out before everything else.
+     *
+     * @param padIndex the pad index (0-9)
+     */
+    public OutputLane laneOf(int padIndex) {
+        switch (this) {
+            case CLIP:
+            case PERF:
+                if (ClipGrid.isClipPad(padIndex)) return OutputLane.CLIP_STATE;
+                if (padIndex == PAD_INDICES.MUTE_PAD) return OutputLane.CHANNEL_STRIP;
+                if (this == CLIP && padIndex == PAD_INDICES.ARM_PAD) return OutputLane.CHANNEL_STRIP;
+                if (this == PERF && padIndex == PerfConsolePrinter.TRACK_CYCLE_PAD) return OutputLane.CHANNEL_STRIP;
+                return OutputLane.COSMETIC;
+            default:
+                return OutputLane.COSMETIC;
+        }
+    }
+
 
     public static class CLIP_LED_STATES {
         public static final LedStates OFF = new LedStates(LedColor.YELLOW, LedLight.OFF);
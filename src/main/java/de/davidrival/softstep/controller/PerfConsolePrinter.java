@@ -5,7 +5,6 @@ import de.davidrival.softstep.api.ApiManager;
 import de.davidrival.softstep.api.BaseConsolePrinter;
 import de.davidrival.softstep.debug.DebugLogger;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,7 +20,17 @@ import java.util.List;
  */
 public class PerfConsolePrinter extends BaseConsolePrinter implements HasControllsForPage, BwsTrackDiscoveryService.LedUpdateCallback {
     
-    private static final int TRACK_CYCLE_PAD = 4;  // PAD4 is dedicated to TRACK_CYCLE functionality in PERF mode
+    static final int TRACK_CYCLE_PAD = 4;  // PAD4 is dedicated to TRACK_CYCLE functionality in PERF mode
+    private static final int TRACK_CYCLE_PADS = HasControllsForPage.maskOf(TRACK_CYCLE_PAD);
+    private static final int CLIP_PADS = HasControllsForPage.maskOf(0, 1, 2, 3, 5);  // CLIP pads, see isClipPad
+    private static final LedStates[] BWS_TRACK_LEDS = {
+            Page.USER_LED_STATES.BWS_TRACK_0,  // YELLOW + ON
+            Page.USER_LED_STATES.BWS_TRACK_1,  // YELLOW + BLINK
+            Page.USER_LED_STATES.BWS_TRACK_2,  // YELLOW + FAST_BLINK
+            Page.USER_LED_STATES.BWS_TRACK_3,  // RED + ON
+            Page.USER_LED_STATES.BWS_TRACK_4,  // RED + BLINK
+            Page.USER_LED_STATES.BWS_TRACK_5   // RED + FAST_BLINK
+    };
     
     private final Page page;
     private final ClipControls clipControls;
@@ -58,39 +67,26 @@ public class PerfConsolePrinter extends BaseConsolePrinter implements HasControl
     }
     
     @Override
-    public void processControlls(List<Softstep1Pad> pushedDownPads, ShortMidiMessage msg) {
-        //apiManager.getHost().println(String.format("PerfPage: Processing %d pads", pushedDownPads.size()));
+    public void processControlls(int pushedDownPads, List<Softstep1Pad> pads, ShortMidiMessage msg) {
+        //apiManager.getHost().println(String.format("PerfPage: Processing %d pads", Integer.bitCount(pushedDownPads)));
         
         // Split pads into CLIP, USER, and TRACK_CYCLE groups
-        List<Softstep1Pad> clipPads = new ArrayList<>();
-        List<Softstep1Pad> userPads = new ArrayList<>();
-        List<Softstep1Pad> trackCyclePads = new ArrayList<>();
-        
-        for (Softstep1Pad pad : pushedDownPads) {
-            int padIndex = pad.getNumber();
-            
-            if (padIndex == TRACK_CYCLE_PAD) {
-                // TRACK_CYCLE_PAD = TRACK_CYCLE in PERF mode
-                trackCyclePads.add(pad);
-            } else if (isClipPad(padIndex)) {
-                clipPads.add(pad);
-            } else {
-                userPads.add(pad);
-            }
-        }
+        int clipPads = pushedDownPads & CLIP_PADS;
+        int trackCyclePads = pushedDownPads & TRACK_CYCLE_PADS;
+        int userPads = pushedDownPads & ~(CLIP_PADS | TRACK_CYCLE_PADS);
         
         // Route to appropriate subsystems
-        if (!clipPads.isEmpty()) {
-            clipControls.processControlls(clipPads, msg);
+        if (clipPads != 0) {
+            clipControls.processControlls(clipPads, pads, msg);
         }
         
-        if (!userPads.isEmpty()) {
-            userControls.processControlls(userPads, msg);
+        if (userPads != 0) {
+            userControls.processControlls(userPads, pads, msg);
         }
         
         // Handle TRACK_CYCLE pads (PAD4 only)
-        if (!trackCyclePads.isEmpty()) {
-            processTrackCyclePads(trackCyclePads, msg);
+        if (trackCyclePads != 0) {
+            processTrackCyclePads(trackCyclePads, pads, msg);
         }
     }
     
@@ -98,42 +94,45 @@ public class PerfConsolePrinter extends BaseConsolePrinter implements HasControl
      * Processes TRACK_CYCLE pads (PAD4 only in PERF mode).
      * Handles BWS track cycling navigation on pad press.
      * 
-     * @param trackCyclePads List of TRACK_CYCLE pads that were pressed
+     * @param trackCyclePads bitmask of the TRACK_CYCLE pads that were pressed
+     * @param pads all pads, indexed by pad number
      * @param msg The MIDI message
      */
-    private void processTrackCyclePads(List<Softstep1Pad> trackCyclePads, ShortMidiMessage msg) {
-        for (Softstep1Pad pad : trackCyclePads) {
+    private void processTrackCyclePads(int trackCyclePads, List<Softstep1Pad> pads, ShortMidiMessage msg) {
+        for (int mask = trackCyclePads; mask != 0; mask &= mask - 1) {
+            Softstep1Pad pad = pads.get(Integer.numberOfTrailingZeros(mask));
             int padIndex = pad.getNumber();
             Gestures gestures = pad.gestures();
             
             // Only log when there's actual pad activity (not idle state)
-            if (gestures.getPressure() > 0 || gestures.isFootOn() || gestures.isFootOff()) {
-                DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("PERF Mode: Processing TRACK_CYCLE PAD%d (pressure: %d, footOn: %s, footOff: %s)", 
-                    padIndex, gestures.getPressure(), gestures.isFootOn(), gestures.isFootOff()));
+            if (DebugLogger.isEnabled(DebugLogger.Category.PERF)
+                    && (gestures.getPressure() > 0 || gestures.isFootOn() || gestures.isFootOff())) {
+                DebugLogger.perff(apiManager.getHost(), padConfigManager, "PERF Mode: Processing TRACK_CYCLE PAD%d (pressure: %d, footOn: %s, footOff: %s)", 
+                    padIndex, gestures.getPressure(), gestures.isFootOn(), gestures.isFootOff());
             }
             
             // Only cycle on pad press (not release)
             if (gestures.isFootOn()) {
-                DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("PERF Mode: PAD%d PRESSED - attempting BWS track cycle", padIndex));
+                DebugLogger.perff(apiManager.getHost(), padConfigManager, "PERF Mode: PAD%d PRESSED - attempting BWS track cycle", padIndex);
                 
                 BwsTrackDiscoveryService bwsService = apiManager.getBwsTrackDiscoveryService();
                 
                 if (bwsService != null && bwsService.isInitialized()) {
-                    DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("PERF Mode: BWS Service available, found %d BWS tracks", 
-                        bwsService.getBwsTrackCount()));
+                    DebugLogger.perff(apiManager.getHost(), padConfigManager, "PERF Mode: BWS Service available, found %d BWS tracks", 
+                        bwsService.getBwsTrackCount());
                     
                     boolean cycled = bwsService.cycleToNextBwsTrack();
                     
                     if (cycled) {
                         int currentSlot = bwsService.getCurrentBwsSlot();
-                        DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("PERF Mode: PAD%d triggered BWS track cycle SUCCESS - current slot: %d", padIndex, currentSlot));
+                        DebugLogger.perff(apiManager.getHost(), padConfigManager, "PERF Mode: PAD%d triggered BWS track cycle SUCCESS - current slot: %d", padIndex, currentSlot);
                         updateTrackCycleLed(padIndex, currentSlot);
                     } else {
-                        DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("PERF Mode: PAD%d - No BWS tracks available for cycling", padIndex));
+                        DebugLogger.perff(apiManager.getHost(), padConfigManager, "PERF Mode: PAD%d - No BWS tracks available for cycling", padIndex);
                         updateTrackCycleLed(padIndex, -1); // No BWS tracks
                     }
                 } else {
-                    DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("PERF Mode: PAD%d - BWS Discovery not initialized or null", padIndex));
+                    DebugLogger.perff(apiManager.getHost(), padConfigManager, "PERF Mode: PAD%d - BWS Discovery not initialized or null", padIndex);
                 }
                 
                 // Mark pad as consumed
@@ -146,34 +145,13 @@ public class PerfConsolePrinter extends BaseConsolePrinter implements HasControl
      * Updates LED feedback for TRACK_CYCLE pad based on current BWS slot.
      * 
      * @param padIndex The pad index (should be 4)
-     * @param currentBwsSlot The current BWS slot (0-5), or -1 if no BWS tracks
+     * @param currentBwsSlot The current BWS slot (0-31), or -1 if no BWS tracks
      */
     private void updateTrackCycleLed(int padIndex, int currentBwsSlot) {
-        LedStates ledState;
-        
-        switch (currentBwsSlot) {
-            case 0:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_0;  // YELLOW + ON
-                break;
-            case 1:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_1;  // YELLOW + BLINK
-                break;
-            case 2:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_2;  // YELLOW + FAST_BLINK
-                break;
-            case 3:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_3;  // RED + ON
-                break;
-            case 4:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_4;  // RED + BLINK
-                break;
-            case 5:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_5;  // RED + FAST_BLINK
-                break;
-            default:
-                ledState = Page.USER_LED_STATES.BWS_INACTIVE;  // GREEN + OFF (no BWS tracks)
-                break;
-        }
+        // 6 patterns, higher slots repeat them
+        LedStates ledState = currentBwsSlot >= 0
+                ? BWS_TRACK_LEDS[currentBwsSlot % BWS_TRACK_LEDS.length]
+                : Page.USER_LED_STATES.BWS_INACTIVE;  // GREEN + OFF (no BWS tracks)
         
         // Update LED using PERF-aware method
         apiManager.getSoftstepController().updateLedStatesForPerfMode(Page.PERF, padIndex, ledState);
@@ -189,7 +167,7 @@ public class PerfConsolePrinter extends BaseConsolePrinter implements HasControl
      * @return true if this pad should use CLIP functionality
      */
     private boolean isClipPad(int padIndex) {
-        return padIndex <= 3 || padIndex == 5;
+        return (CLIP_PADS & (1 << padIndex)) != 0;
     }
     
     /**
@@ -198,7 +176,7 @@ public class PerfConsolePrinter extends BaseConsolePrinter implements HasControl
      */
     private void updateInitialBwsLed() {
         // Delay the initial LED update to allow BWS service to complete discovery
-        apiManager.getHost().scheduleTask(() -> {
+        apiManager.getScheduler().schedule(() -> {
             BwsTrackDiscoveryService bwsService = apiManager.getBwsTrackDiscoveryService();
             
             if (bwsService != null && bwsService.isInitialized()) {
@@ -217,38 +195,20 @@ public class PerfConsolePrinter extends BaseConsolePrinter implements HasControl
     public void updateBwsLed(int bwsSlot) {
         LedStates ledState;
         
-        switch (bwsSlot) {
-            case 0:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_0;  // YELLOW + ON
-                break;
-            case 1:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_1;  // YELLOW + BLINK
-                break;
-            case 2:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_2;  // YELLOW + FAST_BLINK
-                break;
-            case 3:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_3;  // RED + ON
-                break;
-            case 4:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_4;  // RED + BLINK
-                break;
-            case 5:
-                ledState = Page.USER_LED_STATES.BWS_TRACK_5;  // RED + FAST_BLINK
-                break;
-            case -2:
-                ledState = Page.USER_LED_STATES.BWS_NON_BWS_TRACK;  // GREEN + BLINK (non-BWS track)
-                break;
-            default:
-                ledState = Page.USER_LED_STATES.BWS_INACTIVE;  // GREEN + OFF (no BWS tracks)
-                break;
+        if (bwsSlot >= 0) {
+            // 6 patterns, higher slots repeat them, the display shows the track name
+            ledState = BWS_TRACK_LEDS[bwsSlot % BWS_TRACK_LEDS.length];
+        } else if (bwsSlot == -2) {
+            ledState = Page.USER_LED_STATES.BWS_NON_BWS_TRACK;  // GREEN + BLINK (non-BWS track)
+        } else {
+            ledState = Page.USER_LED_STATES.BWS_INACTIVE;  // GREEN + OFF (no BWS tracks)
         }
         
         // Update LED using PERF-aware method
         apiManager.getSoftstepController().updateLedStatesForPerfMode(Page.PERF, TRACK_CYCLE_PAD, ledState);
         
-        DebugLogger.perf(apiManager.getHost(), padConfigManager, String.format("BWS LED Callback: Updated PAD%d to show BWS:%d state (%s)", 
-            TRACK_CYCLE_PAD, bwsSlot, ledState.toString()));
+        DebugLogger.perff(apiManager.getHost(), padConfigManager, "BWS LED Callback: Updated PAD%d to show BWS:%d state (%s)", 
+            TRACK_CYCLE_PAD, bwsSlot, ledState);
     }
     
 }
\ No newline at end of file
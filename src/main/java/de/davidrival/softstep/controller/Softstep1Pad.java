@@ -2,12 +2,11 @@ package de.davidrival.softstep.controller;
 
 import com.bitwig.extension.controller.api.ControllerHost;
 import de.davidrival.softstep.api.BaseConsolePrinter;
+import de.davidrival.softstep.api.HostScheduler;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-import java.util.*;
-
 
 @ToString
 public class Softstep1Pad extends BaseConsolePrinter {
@@ -15,10 +14,12 @@ public class Softstep1Pad extends BaseConsolePrinter {
     @Getter
     private final int number;
     /**
-     * Each pad of the Softstep has 5 different functions, I call them directions
+     * Each pad of the Softstep has 5 different functions, I call them directions.
+     * The pressure of the 4 corners is held in the shared primitive store
      * */
     @Getter
-    private final Map<Integer, Integer> directions;
+    @ToString.Exclude
+    private final PadStateStore store;
     /** The lowest cc data1 of the 4 corners of each pad */
     @Getter
     Integer minData1 = null;
@@ -26,32 +27,41 @@ public class Softstep1Pad extends BaseConsolePrinter {
     @Getter
     Integer maxData1 = null;
 
-    @Getter
-    /** Flag which tells the Controller class to consider this Pad in triggerering something   */
-    private boolean isBeingUsed = false;
-    
     /** Flag to prevent multiple firing during a single press */
     private boolean hasAlreadyFiredInThisPress = false;
 
     @Setter
     private Gestures gestures;
 
-    public Softstep1Pad(int number, Map<Integer, Integer> directions, ControllerHost hostOrNull) {
+    /**
+     * Notified when a time based gesture (long press, hold repeat) of this pad came due
+     */
+    public interface DeadlineGestureListener {
+        void onDeadlineGesture(Softstep1Pad pad);
+    }
+
+    @Setter
+    @ToString.Exclude
+    private DeadlineGestureListener deadlineGestureListener;
+
+    public Softstep1Pad(int number, int[] ccAddresses, PadStateStore store, HostScheduler schedulerOrNull, ControllerHost hostOrNull) {
         super(hostOrNull);
-        this.directions = directions;
+        this.store = store;
         this.number = number;
-        this.gestures = new Gestures(hostOrNull);
-        init();
+        this.gestures = new Gestures(schedulerOrNull, hostOrNull);
+        this.gestures.setDeadlineCallback(this::onDeadlineGesture);
+        init(ccAddresses);
     }
 
-    public void init() {
-        minData1 = directions.entrySet().stream()
-                .min(Map.Entry.comparingByKey()).map(Map.Entry::getKey)
-                .orElseThrow(NoSuchElementException::new);
-
-        maxData1 = directions.entrySet().stream()
-                .max(Map.Entry.comparingByKey()).map(Map.Entry::getKey)
-                .orElseThrow(NoSuchElementException::new);
+    public void init(int[] ccAddresses) {
+        int min = ccAddresses[0];
+        int max = ccAddresses[0];
+        for (int cc : ccAddresses) {
+            min = Math.min(min, cc);
+            max = Math.max(max, cc);
+        }
+        minData1 = min;
+        maxData1 = max;
     }
 
 
@@ -68,26 +78,30 @@ public class Softstep1Pad extends BaseConsolePrinter {
     /**
      * Each Softstep Pad has 4 ( I call it so ) directions which allows
      * to find out if one wants to press it left, right, up down for instance
-     * Each direction has a separate data1 adress. This method distrbutes the
-     * data accordingly.
+     * Each direction has a separate data1 adress which is resolved to its corner slot
+     * by the {@link PadRoutingTable}. This method distrbutes the data accordingly.
      *
-     * @param data1
-     * @param data2
+     * @param corner corner slot (0-3) of this pad
+     * @param data2 pressure of that corner
      */
-    public void update(int data1, int data2) {
-        if (directions.get(data1) != data2) {
+    public void update(int corner, int data2) {
+        if (store.set(number, corner, data2)) {
             // Set this flag so this control will be considered
             markControlUsed();
 
-            distributeToDirections(data1, data2);
-
             // Update gesture detection with new pressure data
             gestures.set(this);
         }
     }
 
-    private void distributeToDirections(int data1, int data2) {
-        this.directions.put(data1,data2);
+    /**
+     * A gesture came due without a new CC, consider this pad like it was just pushed
+     */
+    private void onDeadlineGesture() {
+        markControlUsed();
+        if (deadlineGestureListener != null) {
+            deadlineGestureListener.onDeadlineGesture(this);
+        }
     }
 
     /**
@@ -95,7 +109,8 @@ public class Softstep1Pad extends BaseConsolePrinter {
      * If so this method should be called
      */
     private void markControlUsed() {
-        this.isBeingUsed = true;
+        // The used flag lives in the store so the controller can read all pads as one bitmask
+        store.markUsed(number);
     }
 
     /**
@@ -105,20 +120,18 @@ public class Softstep1Pad extends BaseConsolePrinter {
      */
     public void notifyControlConsumed() {
         // Only mark as not being used - don't reset gestures during active press
-        this.isBeingUsed = false;
+        store.markConsumed(number);
         // Gesture state is managed internally by the state machine
     }
 
 
 
-    public int calcMaxPressureOfDirections(Map<Integer, Integer> dirs) {
-        return dirs.entrySet().stream()
-                .max(Map.Entry.comparingByValue()).map(Map.Entry::getValue)
-                .orElseThrow(NoSuchElementException::new);
+    public int calcMaxPressureOfDirections() {
+        return store.getMaxPressure(number);
     }
 
     public boolean isUsed() {
-        return isBeingUsed;
+        return store.isUsed(number);
     }
 
     public Gestures gestures() {
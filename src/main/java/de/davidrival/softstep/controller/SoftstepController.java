@@ -11,9 +11,6 @@ import de.davidrival.softstep.hardware.SoftstepHardwareBase;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
 
 
 @Getter
@@ -25,6 +22,8 @@ public class SoftstepController extends BaseConsolePrinter {
     // public static final int PEDAL_DATA1 = 50;
     // public static final double PEDAL_DATA2_MULTI = 1.95;
 
+    public static final int NAV_HOLD_REPEAT_INTERVAL_MS = 250;
+
     private SoftstepHardware softstepHardware;
 
     final Controls controls;
@@ -37,7 +36,10 @@ public class SoftstepController extends BaseConsolePrinter {
     
     private PadConfigurationManager padConfigManager;
 
-    private List<HasControllsForPage> hasControllsForPages;
+    private final DisplayCompositor displayCompositor;
+
+    /** The controls of each page, indexed by {@link Page#pageIndex} */
+    private final HasControllsForPage[] hasControllsForPages = new HasControllsForPage[Page.values().length];
 
     public SoftstepController(
             ControllerPages controllerPages
@@ -51,20 +53,54 @@ public class SoftstepController extends BaseConsolePrinter {
         this.padConfigManager = padConfigManager;
         this.apiManager = new ApiManager(hostOrNull, this, padConfigManager);
 
-        this.controls = new Controls(apiManager.getHost());
+        this.controls = new Controls(apiManager.getHost(), apiManager.getScheduler());
+
+        this.displayCompositor = new DisplayCompositor(softstepHardware, apiManager.getScheduler());
+        apiManager.getBwsTrackDiscoveryService().setTrackNameCallback(displayCompositor::setBwsTrackName);
+        initGestures();
 
-        hasControllsForPages = new ArrayList<>();
         HasControllsForPage clipControlls = new ClipControls(Page.CLIP, apiManager);
         HasControllsForPage userControlls = new UserControlls(Page.USER, apiManager, padConfigManager);
         HasControllsForPage perfPage = new PerfConsolePrinter(Page.PERF, apiManager, padConfigManager);
-        hasControllsForPages.add(clipControlls);
-        hasControllsForPages.add(userControlls);
-        hasControllsForPages.add(perfPage);
+        hasControllsForPages[clipControlls.getPage().pageIndex] = clipControlls;
+        hasControllsForPages[userControlls.getPage().pageIndex] = userControlls;
+        hasControllsForPages[perfPage.getPage().pageIndex] = perfPage;
+        apiManager.getSubscriptions().setActiveFeatures(pages.getCurrentPage().subscriptionFeatures());
 
     }
 
+    /**
+     * Hands per pad timings to the gesture recognizers and lets deadline gestures
+     * (long press, hold repeat) run through the pages the moment they come due.
+     */
+    private void initGestures() {
+        for (Softstep1Pad pad : controls.getPads()) {
+            pad.gestures().setPadConfig(padConfigManager.getPadConfig(pad.getNumber()));
+        }
+        applyPageGestures();
+        controls.setDeadlineGestureListener(pad -> triggerBitwigIfControlsUsed(controls, null));
+    }
+
+    /**
+     * Holding a nav pad keeps scrolling, only the clip page scrolls with them so the other pages
+     * don't get woken up for repeats they ignore.
+     */
+    private void applyPageGestures() {
+        int interval = pages.getCurrentPage().equals(Page.CLIP)
+                ? NAV_HOLD_REPEAT_INTERVAL_MS : Gestures.HOLD_REPEAT_INTERVAL_MS;
+        for (int navPad : new int[]{Page.PAD_INDICES.NAV_LEFT, Page.PAD_INDICES.NAV_RIGHT
+                , Page.PAD_INDICES.NAV_UP, Page.PAD_INDICES.NAV_DOWN}) {
+            controls.getPads().get(navPad).gestures().setHoldRepeatIntervalMs(interval);
+        }
+    }
+
     public void display() {
-        softstepHardware.displayText(pages.getCurrentPage().name());
+        Page page = pages.getCurrentPage();
+        for (int i = 0; i < page.ledStates.size(); i++) {
+            softstepHardware.setLedLane(i, page.laneOf(i));
+        }
+        displayCompositor.setPageName(page.name());
+        displayCompositor.setBwsTrackVisible(page.equals(Page.PERF));
         softstepHardware.showAllLeds(pages.getCurrentPage());
     }
 
@@ -97,43 +133,40 @@ public class SoftstepController extends BaseConsolePrinter {
     }
     */
 
+    /**
+     * @param msg the incoming message, null if a deadline gesture triggered the update
+     */
     private void triggerBitwigIfControlsUsed(Controls controls, ShortMidiMessage msg) {
-        List<Softstep1Pad> pushedDownPads = controls.getPads()
-                .stream()
-                .filter(Softstep1Pad::isUsed)
-                .collect(Collectors.toList());
+        int pushedDownPads = controls.getPadStateStore().getUsedPadsMask();
 
 //        If no controlls where used on the device just exit
-        if (pushedDownPads.size() == 0) return;
+        if (pushedDownPads == 0) return;
 
-        hasControllsForPages.stream()
-                .filter(c -> c.getPage().equals(pages.getCurrentPage()))
-                .findFirst().ifPresent(
-                        p -> p.processControlls(pushedDownPads, msg)
-                );
+        HasControllsForPage controllsForPage = hasControllsForPages[pages.getCurrentPage().pageIndex];
+        if (controllsForPage != null) {
+            controllsForPage.processControlls(pushedDownPads, controls.getPads(), msg);
+        }
     }
 
     // Navigation pad with 4 directions - any press cycles between pages
-    // North: data1=82, East: data1=81, South: data1=83, West: data1=80
-    private static final int[] NAV_PAD_ADDRESSES = {80, 81, 82, 83};
-    private boolean[] navPadPressed = new boolean[4]; // Track which directions are pressed
+    // Addresses are routed through the same table as the pads, see Controls.NAV_PAD_ADDRESSES
+    private boolean[] navPadPressed = new boolean[Controls.NAV_PAD_ADDRESSES.length]; // Track which directions are pressed
 
     private boolean isMidiUsedForPageChange(ShortMidiMessage msg) {
         if (msg.getStatusByte() == SoftstepHardwareBase.STATUS_BYTE) {
+            int route = controls.getRouting().routeOf(msg.getData1());
             // Check if this is one of the 4 navigation pad directions
-            for (int i = 0; i < NAV_PAD_ADDRESSES.length; i++) {
-                if (msg.getData1() == NAV_PAD_ADDRESSES[i]) {
-                    boolean wasPressed = navPadPressed[i];
-                    boolean isPressed = msg.getData2() > 10; // Threshold for press detection
-                    navPadPressed[i] = isPressed;
-                    
-                    // On rising edge (not pressed -> pressed), cycle pages
-                    if (!wasPressed && isPressed) {
-                        cyclePage();
-                        return true;
-                    }
-                    return true; // Consume all navigation pad messages
+            if (PadRoutingTable.isNav(route)) {
+                int direction = PadRoutingTable.navDirectionOf(route);
+                boolean wasPressed = navPadPressed[direction];
+                boolean isPressed = msg.getData2() > 10; // Threshold for press detection
+                navPadPressed[direction] = isPressed;
+
+                // On rising edge (not pressed -> pressed), cycle pages
+                if (!wasPressed && isPressed) {
+                    cyclePage();
                 }
+                return true; // Consume all navigation pad messages
             }
         }
         return false;
@@ -148,7 +181,11 @@ public class SoftstepController extends BaseConsolePrinter {
         } else {
             pages.setCurrentPage(Page.CLIP);
         }
+        apiManager.getSubscriptions().setActiveFeatures(pages.getCurrentPage().subscriptionFeatures());
+        applyPageGestures();
         display();
+        // the page name stays visible for a moment even if a track name covers it
+        displayCompositor.showNotification(pages.getCurrentPage().name());
     }
 
 
@@ -198,12 +235,12 @@ public class SoftstepController extends BaseConsolePrinter {
                 softstepHardware.drawLedAt(index, ledStates);
                 
                 // Debug logging
-                DebugLogger.perf(getHost(), padConfigManager, String.format("PERF Mode LED Update: Pad %d from %s page with state %s", 
-                    index, page.toString(), ledStates.toString()));
+                DebugLogger.perff(getHost(), padConfigManager, "PERF Mode LED Update: Pad %d from %s page with state %s", 
+                    index, page, ledStates);
             } else {
                 // Debug logging for blocked updates
-                DebugLogger.perf(getHost(), padConfigManager, String.format("PERF Mode LED BLOCKED: Pad %d from %s page (assigned to different subsystem)", 
-                    index, page.toString()));
+                DebugLogger.perff(getHost(), padConfigManager, "PERF Mode LED BLOCKED: Pad %d from %s page (assigned to different subsystem)", 
+                    index, page);
             }
         }
         // If not in PERF mode, fall back to normal behavior
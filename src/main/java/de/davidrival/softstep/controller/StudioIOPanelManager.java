@@ -2,6 +2,7 @@ package de.davidrival.softstep.controller;
 
 import com.bitwig.extension.controller.api.*;
 import de.davidrival.softstep.api.ApiManager;
+import de.davidrival.softstep.api.HostScheduler;
 import de.davidrival.softstep.debug.DebugLogger;
 
 /**
@@ -17,6 +18,7 @@ public class StudioIOPanelManager {
     
     private final ControllerHost host;
     private final ApiManager apiManager;
+    private final HostScheduler scheduler;
     private final PadConfigurationManager padConfigManager;
     private final DocumentState documentState;
     private final SettableEnumValue[] longPressTestButtons;
@@ -28,6 +30,7 @@ public class StudioIOPanelManager {
     public StudioIOPanelManager(ControllerHost host, ApiManager apiManager, PadConfigurationManager padConfigManager) {
         this.host = host;
         this.apiManager = apiManager;
+        this.scheduler = apiManager.getScheduler();
         this.padConfigManager = padConfigManager;
         this.documentState = host.getDocumentState();
         this.longPressTestButtons = new SettableEnumValue[NUM_PADS];
@@ -86,36 +89,25 @@ public class StudioIOPanelManager {
                     
                     // Reset back to "Ready" state after triggering
                     // Use a small delay to ensure the trigger is processed first
-                    new java.util.Timer().schedule(new java.util.TimerTask() {
-                        @Override
-                        public void run() {
-                            longPressTestButtons[padIndex].set(IDLE_VALUE);
-                        }
-                    }, 100); // 100ms delay
+                    scheduler.schedule(() -> longPressTestButtons[padIndex].set(IDLE_VALUE), 100); // 100ms delay
                 }
             });
-            
-            // Mark initialization as complete after a short delay
-            new java.util.Timer().schedule(new java.util.TimerTask() {
-                @Override
-                public void run() {
-                    initializationComplete[padIndex] = true;
-                }
-            }, 1000); // 1 second delay to ensure everything is properly initialized
         }
         
+        // Mark initialization as complete after a short delay, one task for all pads
+        scheduler.schedule(() -> {
+            for (int i = 0; i < NUM_PADS; i++) {
+                initializationComplete[i] = true;
+            }
+        }, 1000); // 1 second delay to ensure everything is properly initialized
+        
         // Set up BWS rescan button observer
         bwsRescanButton.addValueObserver(value -> {
             if (TRIGGER_VALUE.equals(value)) {
                 triggerBwsRescan();
                 
                 // Reset button to idle state
-                new java.util.Timer().schedule(new java.util.TimerTask() {
-                    @Override
-                    public void run() {
-                        bwsRescanButton.set(IDLE_VALUE);
-                    }
-                }, 100);
+                scheduler.schedule(() -> bwsRescanButton.set(IDLE_VALUE), 100);
             }
         });
     }
@@ -156,10 +148,10 @@ public class StudioIOPanelManager {
         );
         
         // Debug logging
-        DebugLogger.user(host, padConfigManager, String.format(
+        DebugLogger.userf(host, padConfigManager,
             "StudioIOPanelManager: Triggered long press burst for Pad %d → UserControl%d with value %d",
             padIndex, longPressUserControlIndex, longPressValue
-        ));
+        );
     }
     
     /**
@@ -196,10 +188,10 @@ public class StudioIOPanelManager {
         );
         
         // Debug logging
-        DebugLogger.user(host, padConfigManager, String.format(
+        DebugLogger.userf(host, padConfigManager,
             "StudioIOPanelManager: Triggered ramped burst for Pad %d → UserControl%d (ramping to value %d in %d steps)",
             padIndex, longPressUserControlIndex, targetValue, padConfigManager.getBurstCount()
-        ));
+        );
     }
     
     /**
@@ -3,6 +3,8 @@ package de.davidrival.softstep.controller;
 import com.bitwig.extension.api.util.midi.ShortMidiMessage;
 import de.davidrival.softstep.api.ApiManager;
 import de.davidrival.softstep.api.BaseConsolePrinter;
+import de.davidrival.softstep.api.HostScheduler;
+import de.davidrival.softstep.debug.DebugLogger;
 
 import java.util.List;
 
@@ -16,6 +18,9 @@ public class UserControlls extends BaseConsolePrinter implements HasControllsFor
     // State tracking for toggle and increment modes
     private final boolean[] toggleStates = new boolean[10];
     private final int[] incrementValues = new int[10];
+    
+    // Pending LED restore after a long press flash, per pad
+    private final HostScheduler.Task[] flashRestoreTasks = new HostScheduler.Task[10];
 
     public UserControlls(Page page, ApiManager apiManager, PadConfigurationManager padConfigManager) {
         super(apiManager.getHost());
@@ -88,30 +93,31 @@ public class UserControlls extends BaseConsolePrinter implements HasControllsFor
     }
 
     @Override
-    public void processControlls(List<Softstep1Pad> pushedDownPads, ShortMidiMessage msg) {
+    public void processControlls(int pushedDownPads, List<Softstep1Pad> pads, ShortMidiMessage msg) {
         // First check for long press actions - these have priority
-        processPadLongPress(pushedDownPads);
+        processPadLongPress(pushedDownPads, pads);
         
         // Process normal pad functionality
-        pushedDownPads.forEach(pad -> {
+        for (int mask = pushedDownPads; mask != 0; mask &= mask - 1) {
+            Softstep1Pad pad = pads.get(Integer.numberOfTrailingZeros(mask));
             processPadWithConfiguration(pad);
             pad.notifyControlConsumed();
-        });
+        }
     }
     
-    private void processPadLongPress(List<Softstep1Pad> pushedDownPads) {
+    private void processPadLongPress(int pushedDownPads, List<Softstep1Pad> pads) {
         // Process long press actions for each pad (only if enabled)
-        pushedDownPads.stream()
-                .filter(pad -> pad.gestures().isLongPress())
-                .filter(pad -> {
-                    PadConfigurationManager.PadConfig config = padConfigManager.getPadConfig(pad.getNumber());
-                    return config.longPressEnabled; // Only process if long press is enabled
-                })
-                .forEach(pad -> {
-                    handlePadLongPress(pad);
-                    pad.gestures().clearLongPressEvent(); // Clear the long press event
-                    pad.notifyControlConsumed();
-                });
+        for (int mask = pushedDownPads; mask != 0; mask &= mask - 1) {
+            Softstep1Pad pad = pads.get(Integer.numberOfTrailingZeros(mask));
+            if (!pad.gestures().isLongPress()) continue;
+
+            PadConfigurationManager.PadConfig config = padConfigManager.getPadConfig(pad.getNumber());
+            if (!config.longPressEnabled) continue; // Only process if long press is enabled
+
+            handlePadLongPress(pad);
+            pad.gestures().clearLongPressEvent(); // Clear the long press event
+            pad.notifyControlConsumed();
+        }
     }
     
     private void handlePadLongPress(Softstep1Pad pad) {
@@ -141,9 +147,8 @@ public class UserControlls extends BaseConsolePrinter implements HasControllsFor
         updateHardwareLongPressFeedback(padIndex);
         
         // Debug logging
-        double normalizedDisplay = longPressValue / 127.0;
-        p(String.format("LONG PRESS Pad %d → UserControl%d: burst %d signals (value %d, %.3f normalized, configured: %d)", 
-            padIndex, longPressUserControlIndex, padConfigManager.getBurstCount(), longPressValue, normalizedDisplay, config.longPressValue));
+        DebugLogger.userf(apiManager.getHost(), padConfigManager, "LONG PRESS Pad %d → UserControl%d: burst %d signals (value %d, %.3f normalized, configured: %d)", 
+            padIndex, longPressUserControlIndex, padConfigManager.getBurstCount(), longPressValue, longPressValue / 127.0, config.longPressValue);
     }
     
     private void updateHardwareLongPressFeedback(int padIndex) {
@@ -151,16 +156,15 @@ public class UserControlls extends BaseConsolePrinter implements HasControllsFor
         // Use PERF-aware LED update method for hybrid mode compatibility
         apiManager.getSoftstepController().updateLedStatesForPerfMode(Page.USER, padIndex, Page.USER_LED_STATES.LONG_PRESS_FLASH);
         
-        // Restore normal LED state after brief delay (via simple timer)
-        // Note: In production, you might want to use a more sophisticated timing mechanism
-        new java.util.Timer().schedule(new java.util.TimerTask() {
-            @Override
-            public void run() {
+        // Restore normal LED state after brief delay, a new flash replaces a pending restore
+        if (flashRestoreTasks[padIndex] != null) {
+            flashRestoreTasks[padIndex].cancel();
+        }
+        flashRestoreTasks[padIndex] = apiManager.getScheduler().schedule(() -> {
                 // Restore based on current state - get fresh config in case it changed
                 PadConfigurationManager.PadConfig config = padConfigManager.getPadConfig(padIndex);
                 int currentOutputValue = getCurrentPadOutputValue(padIndex, config);
                 updateHardwareFeedback(padIndex, config, currentOutputValue);
-            }
         }, 500); // 500ms flash duration
     }
     
@@ -232,21 +236,22 @@ public class UserControlls extends BaseConsolePrinter implements HasControllsFor
             
             outputValue = Math.max(config.min, Math.min(config.max, outputValue));
             
-            // Scale from configured range (min-max) to resolution range (0-127) for Bitwig API
-            int scaledValue = 0;
-            if (config.max > config.min) {
-                double normalizedValue = (double)(outputValue - config.min) / (double)(config.max - config.min);
-                scaledValue = (int) Math.round(normalizedValue * 127.0);
-            }
+            int scaledValue = scaleToControl(config, outputValue);
             
-            apiManager.getApiToHost().setValueOfUserControl(padIndex, scaledValue);
+            // Sent on the next flush, unless it doesn't change the control or is within the pressure deadband.
+            // The ends of the pad's range always pass, so releasing lands on the resting value, inverted or not
+            int deadband = config.mode == PadConfigurationManager.PadMode.PRESSURE ? padConfigManager.getPressureDeadband() : 0;
+            int restingValue = scaleToControl(config, config.inverted ? config.max : config.min);
+            int fullValue = scaleToControl(config, config.inverted ? config.min : config.max);
+            boolean queued = apiManager.getApiToHost().offerValueOfUserControl(padIndex, scaledValue, deadband, restingValue, fullValue);
             
-            // Debug logging
-            double normalizedDisplay = scaledValue / 127.0;
-            p(String.format("Pad %d [%s]: sent value %d (%.3f normalized, raw: %d, inverted: %s, range: %d-%d)", 
-                padIndex, config.mode.toString(), scaledValue, normalizedDisplay,
-                config.inverted ? (config.max + config.min - outputValue) : outputValue, 
-                config.inverted, config.min, config.max));
+            // Debug logging, runs on every pressure change so don't even box the arguments if disabled
+            if (queued && DebugLogger.isEnabled(DebugLogger.Category.USER)) {
+                DebugLogger.userf(apiManager.getHost(), padConfigManager, "Pad %d [%s]: queued value %d (%.3f normalized, raw: %d, inverted: %s, range: %d-%d)", 
+                    padIndex, config.mode, scaledValue, scaledValue / 127.0,
+                    config.inverted ? (config.max + config.min - outputValue) : outputValue, 
+                    config.inverted, config.min, config.max);
+            }
         }
         
         if (updateHardware) {
@@ -254,6 +259,15 @@ public class UserControlls extends BaseConsolePrinter implements HasControllsFor
         }
     }
     
+    /**
+     * Scales from the configured range (min-max) to the resolution range (0-127) of the Bitwig API.
+     */
+    private static int scaleToControl(PadConfigurationManager.PadConfig config, int value) {
+        if (config.max <= config.min) return 0;
+        double normalizedValue = (double)(value - config.min) / (double)(config.max - config.min);
+        return (int) Math.round(normalizedValue * 127.0);
+    }
+    
     private void processIncrementMode(int padIndex, PadConfigurationManager.PadConfig config) {
         int stepSize = (int) config.stepSize;
         incrementValues[padIndex] += stepSize;
@@ -0,0 +1,309 @@
+package de.davidrival.softstep.controller;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.bitwig.extension.controller.api.Subscribable;
+import com.bitwig.extension.controller.api.Track;
+import com.bitwig.extension.controller.api.TrackBank;
+import de.davidrival.softstep.api.HostScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the track names of a project of any size with a small track bank which slides over the
+ * project window by window, used by the {@link BwsTrackDiscoveryService} instead of one bank for all tracks.
+ * <p>
+ * Visiting a window scrolls the bank, gives Bitwig a moment to report the names and reads them.
+ * A fingerprint of the names per window tells if anything changed, only changed windows are handed
+ * to the listener. Windows are visited when the track count changed, when a name in the window the
+ * bank rests on changed, and one by one in the background to notice renames in other windows.
+ * <p>
+ * Group aware scanning slides over the flat track list, which has the tracks of expanded groups.
+ * Children of collapsed groups are read on demand: a probe bank scrolls to each collapsed group of the
+ * visited window and pages through its children, the result is part of the fingerprint of the window.
+ * <p>
+ * Only used on the host thread, all waiting is done by the {@link HostScheduler}.
+ */
+class WindowedBwsScanner {
+
+    static final int WINDOW_SIZE = 16;
+
+    /** Time Bitwig gets to report the names after the bank scrolled */
+    private static final int SETTLE_MS = 150;
+    /** One window is revisited per period to notice renames outside the current window */
+    private static final int REVISIT_PERIOD_MS = 2000;
+    private static final int CHANGE_DELAY_MS = 250;
+    private static final int UNKNOWN_FINGERPRINT = 0;
+    private static final Object VISIT_TASK_KEY = new Object();
+
+    interface Listener {
+        /**
+         * @param firstPosition project position of the first name
+         * @param names names of the window, null for positions without a track
+         */
+        void onWindowChanged(int firstPosition, String[] names);
+
+        /**
+         * Called after {@link #onWindowChanged} for every page of children of the collapsed groups in the window.
+         *
+         * @param groupPosition project position of the collapsed group
+         * @param firstChild index of the first name within the group
+         * @param names names of the children, null for positions without a track
+         */
+        void onGroupChildrenChanged(int groupPosition, int firstChild, String[] names);
+
+        /**
+         * Called after the windows which changed were handed over.
+         */
+        void onScanFinished(int trackCount);
+    }
+
+    /** Children of a collapsed group read by the probe */
+    private static class GroupPage {
+        final int groupPosition;
+        final int firstChild;
+        final String[] names = new String[WINDOW_SIZE];
+
+        GroupPage(int groupPosition, int firstChild) {
+            this.groupPosition = groupPosition;
+            this.firstChild = firstChild;
+        }
+    }
+
+    private final TrackBank bank;
+    private final HostScheduler scheduler;
+    private final Listener listener;
+    /** Probe and children bank for collapsed groups, null without group aware scanning */
+    private final TrackBank groupProbe;
+    private final TrackBank groupChildren;
+
+    private final String[] names = new String[WINDOW_SIZE];
+    /** State of the window visit while its collapsed groups are probed */
+    private final int[] collapsedGroups = new int[WINDOW_SIZE];
+    private final List<GroupPage> groupPages = new ArrayList<>();
+    private int collapsedGroupCount = 0;
+    private int firstPosition = 0;
+    private int fingerprint = 0;
+    private int[] fingerprints = new int[0];
+    /** Bit per window which waits for a visit */
+    private long[] pendingWindows = new long[0];
+
+    private int trackCount = 0;
+    private boolean visiting = false;
+    private boolean changedInScan = false;
+    private int revisitCursor = 0;
+
+    /**
+     * @param groupAware true to scan the flat track list and the children of collapsed groups
+     */
+    WindowedBwsScanner(ControllerHost host, HostScheduler scheduler, Listener listener, boolean groupAware) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+        if (groupAware) {
+            this.bank = host.createTrackBank(WINDOW_SIZE, 0, 0, true);
+            this.groupProbe = host.createTrackBank(1, 0, 0, true);
+            this.groupChildren = groupProbe.getItemAt(0).createTrackBank(WINDOW_SIZE, 0, 0, true);
+        } else {
+            this.bank = host.createMainTrackBank(WINDOW_SIZE, 0, 0);
+            this.groupProbe = null;
+            this.groupChildren = null;
+        }
+    }
+
+    /**
+     * @return the banks the scanner reads, visits wait while they are unsubscribed
+     */
+    Subscribable[] getBanks() {
+        return groupProbe != null ? new Subscribable[]{bank, groupProbe} : new Subscribable[]{bank};
+    }
+
+    void start(int initialDelayMs) {
+        bank.scrollPosition().markInterested();
+        bank.itemCount().markInterested();
+        bank.itemCount().addValueObserver(count -> {
+            // tracks removed from the end leave no changed window behind, the end of the scan releases them
+            if (count < trackCount) changedInScan = true;
+            trackCount = count;
+            // insertions move all tracks behind them, only a visit tells which windows changed
+            markAllWindows();
+            scheduler.scheduleCoalesced(VISIT_TASK_KEY, this::visitNext, CHANGE_DELAY_MS);
+        });
+
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            Track track = bank.getItemAt(i);
+            track.exists().markInterested();
+            track.name().markInterested();
+            track.name().addValueObserver(name -> {
+                // names reported after a scroll are read by the visit itself
+                if (visiting) return;
+                markWindow(bank.scrollPosition().get() / WINDOW_SIZE);
+                scheduler.scheduleCoalesced(VISIT_TASK_KEY, this::visitNext, CHANGE_DELAY_MS);
+            });
+            if (groupProbe != null) {
+                // expanding or collapsing changes the flat track count, no observer needed
+                track.isGroup().markInterested();
+                track.isGroupExpanded().markInterested();
+            }
+        }
+
+        if (groupProbe != null) {
+            // The probe only carries data of the group it is scrolled to, read when a visit needs it
+            groupProbe.scrollPosition().markInterested();
+            groupChildren.scrollPosition().markInterested();
+            groupChildren.itemCount().markInterested();
+            for (int i = 0; i < WINDOW_SIZE; i++) {
+                Track child = groupChildren.getItemAt(i);
+                child.exists().markInterested();
+                child.name().markInterested();
+            }
+        }
+
+        scheduler.schedule(this::rescan, initialDelayMs);
+        scheduler.scheduleRepeating(this::revisitOne, REVISIT_PERIOD_MS, REVISIT_PERIOD_MS, HostScheduler.FOREVER);
+    }
+
+    /**
+     * Forgets all fingerprints and visits every window.
+     */
+    void rescan() {
+        Arrays.fill(fingerprints, UNKNOWN_FINGERPRINT);
+        changedInScan = true; // the listener gets the end of the scan even if the project is empty
+        markAllWindows();
+        if (!visiting) {
+            visitNext();
+        }
+    }
+
+    /**
+     * Visits every window but keeps the fingerprints, only windows which changed are handed to the listener.
+     */
+    void revisitAll() {
+        markAllWindows();
+        scheduler.scheduleCoalesced(VISIT_TASK_KEY, this::visitNext, CHANGE_DELAY_MS);
+    }
+
+    private int windowCount() {
+        return (trackCount + WINDOW_SIZE - 1) / WINDOW_SIZE;
+    }
+
+    private void markAllWindows() {
+        int windows = windowCount();
+        if (fingerprints.length < windows) {
+            fingerprints = Arrays.copyOf(fingerprints, windows);
+            pendingWindows = Arrays.copyOf(pendingWindows, (windows + Long.SIZE - 1) / Long.SIZE);
+        }
+        for (int window = 0; window < windows; window++) {
+            markWindow(window);
+        }
+    }
+
+    private void markWindow(int window) {
+        if (window < 0 || window >= fingerprints.length) return;
+        pendingWindows[window / Long.SIZE] |= 1L << window;
+    }
+
+    private void revisitOne() {
+        int windows = windowCount();
+        if (visiting || windows == 0) return;
+
+        revisitCursor = (revisitCursor + 1) % windows;
+        markWindow(revisitCursor);
+        visitNext();
+    }
+
+    private void visitNext() {
+        // names of an unsubscribed bank are stale, a rescan follows the next subscribe
+        if (visiting || !bank.isSubscribed()) return;
+
+        int window = nextPendingWindow();
+        if (window < 0) {
+            if (changedInScan) {
+                changedInScan = false;
+                listener.onScanFinished(trackCount);
+            }
+            return;
+        }
+        pendingWindows[window / Long.SIZE] &= ~(1L << window);
+
+        visiting = true;
+        bank.scrollPosition().set(window * WINDOW_SIZE);
+        scheduler.schedule(() -> readWindow(window), SETTLE_MS);
+    }
+
+    private int nextPendingWindow() {
+        int windows = windowCount();
+        for (int word = 0; word < pendingWindows.length; word++) {
+            if (pendingWindows[word] != 0) {
+                int window = word * Long.SIZE + Long.numberOfTrailingZeros(pendingWindows[word]);
+                if (window < windows) return window;
+                // the project got smaller
+                pendingWindows[word] = 0;
+            }
+        }
+        return -1;
+    }
+
+    private void readWindow(int window) {
+        // Bitwig might keep the bank from scrolling past the end, names belong to where it is
+        firstPosition = bank.scrollPosition().get();
+        fingerprint = 31 + firstPosition;
+        collapsedGroupCount = 0;
+        groupPages.clear();
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            Track track = bank.getItemAt(i);
+            names[i] = track.exists().get() ? track.name().get() : null;
+            fingerprint = 31 * fingerprint + (names[i] != null ? names[i].hashCode() : 0);
+            if (groupProbe != null && names[i] != null && track.isGroup().get() && !track.isGroupExpanded().get()) {
+                collapsedGroups[collapsedGroupCount++] = firstPosition + i;
+            }
+        }
+        probeGroup(window, 0, 0);
+    }
+
+    /**
+     * Reads the children of the collapsed groups of the window page by page, then finishes the visit.
+     */
+    private void probeGroup(int window, int group, int firstChild) {
+        if (group == collapsedGroupCount) {
+            finishWindow(window);
+            return;
+        }
+        groupProbe.scrollPosition().set(collapsedGroups[group]);
+        groupChildren.scrollPosition().set(firstChild);
+        scheduler.schedule(() -> readGroupPage(window, group, firstChild), SETTLE_MS);
+    }
+
+    private void readGroupPage(int window, int group, int firstChild) {
+        GroupPage page = new GroupPage(collapsedGroups[group], firstChild);
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            Track child = groupChildren.getItemAt(i);
+            page.names[i] = child.exists().get() ? child.name().get() : null;
+            fingerprint = 31 * fingerprint + (page.names[i] != null ? page.names[i].hashCode() : 0);
+        }
+        groupPages.add(page);
+
+        int nextChild = firstChild + WINDOW_SIZE;
+        if (nextChild < groupChildren.itemCount().get()) {
+            probeGroup(window, group, nextChild);
+        } else {
+            probeGroup(window, group + 1, 0);
+        }
+    }
+
+    private void finishWindow(int window) {
+        if (fingerprint == UNKNOWN_FINGERPRINT) fingerprint = 1;
+
+        if (window < fingerprints.length && fingerprints[window] != fingerprint) {
+            fingerprints[window] = fingerprint;
+            changedInScan = true;
+            listener.onWindowChanged(firstPosition, names);
+            for (GroupPage page : groupPages) {
+                listener.onGroupChildrenChanged(page.groupPosition, page.firstChild, page.names);
+            }
+        }
+        groupPages.clear();
+        visiting = false;
+        visitNext();
+    }
+}
@@ -3,6 +3,8 @@ package de.davidrival.softstep.debug;
 import com.bitwig.extension.controller.api.ControllerHost;
 import de.davidrival.softstep.controller.PadConfigurationManager;
 
+import java.util.function.Supplier;
+
 /**
  * Centralized debug logging system with granular control over different subsystems.
  * 
@@ -17,8 +19,110 @@ import de.davidrival.softstep.controller.PadConfigurationManager;
  * DebugLogger.perf(host, padConfigManager, "PERF mode message");
  * DebugLogger.user(host, padConfigManager, "USER mode message"); 
  * DebugLogger.clip(host, padConfigManager, "CLIP mode message");
+ *
+ * On hot paths pass a Supplier, the message is only built if the category is enabled:
+ * DebugLogger.user(host, padConfigManager, () -> String.format("Pad %d: %d", pad, value));
+ *
+ * The flags are a snapshot of the debug preferences, the PadConfigurationManager publishes
+ * it from its preference observers. Checking a category is a single volatile read.
+ *
+ * With a {@link MappedLogSink} installed the messages are written to a file, the console
+ * only gets the periodic summaries of the sink.
  */
 public class DebugLogger {
+
+    public enum Category {
+        COMMON("[DEBUG_COMMON] "),
+        PERF("[DEBUG_PERF] "),
+        USER("[DEBUG_USER] "),
+        CLIP("[DEBUG_CLIP] ");
+
+        private final String prefix;
+
+        Category(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    /** Bit per enabled {@link Category} */
+    private static volatile int enabledCategories = 0;
+
+    /** Optional file sink, null logs to the Bitwig console */
+    private static volatile MappedLogSink sink = null;
+
+    /**
+     * Publishes a new snapshot of the debug flags, called by the preference observers.
+     */
+    public static void updateFlags(boolean common, boolean perf, boolean user, boolean clip) {
+        enabledCategories = (common ? Category.COMMON.bit() : 0)
+                | (perf ? Category.PERF.bit() : 0)
+                | (user ? Category.USER.bit() : 0)
+                | (clip ? Category.CLIP.bit() : 0);
+    }
+
+    public static boolean isEnabled(Category category) {
+        return (enabledCategories & category.bit()) != 0;
+    }
+
+    private static boolean isEnabled(PadConfigurationManager padConfigManager, Category category) {
+        return padConfigManager != null && isEnabled(category);
+    }
+
+    /**
+     * Installs a file sink, debug messages then go to the file instead of the Bitwig console.
+     * Passing null closes the current sink and logs to the console again.
+     */
+    public static synchronized void setSink(MappedLogSink newSink) {
+        MappedLogSink old = sink;
+        sink = newSink;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    public static MappedLogSink getSink() {
+        return sink;
+    }
+
+    private static void emit(ControllerHost host, Category category, String message) {
+        MappedLogSink current = sink;
+        if (current == null) {
+            host.println(category.prefix + message);
+            return;
+        }
+        current.append(category.ordinal(), message);
+        // summaries are made by the sink thread, printed here as the console belongs to the host thread
+        String summary = current.pollSummary();
+        if (summary != null) {
+            host.println(summary);
+        }
+    }
+
+    private static void log(ControllerHost host, PadConfigurationManager padConfigManager, Category category, Supplier<String> message) {
+        if (isEnabled(padConfigManager, category)) {
+            emit(host, category, message.get());
+        }
+    }
+
+    public static void common(ControllerHost host, PadConfigurationManager padConfigManager, Supplier<String> message) {
+        log(host, padConfigManager, Category.COMMON, message);
+    }
+
+    public static void perf(ControllerHost host, PadConfigurationManager padConfigManager, Supplier<String> message) {
+        log(host, padConfigManager, Category.PERF, message);
+    }
+
+    public static void user(ControllerHost host, PadConfigurationManager padConfigManager, Supplier<String> message) {
+        log(host, padConfigManager, Category.USER, message);
+    }
+
+    public static void clip(ControllerHost host, PadConfigurationManager padConfigManager, Supplier<String> message) {
+        log(host, padConfigManager, Category.CLIP, message);
+    }
     
     /**
      * Logs a common/startup/general system message if DEBUG_COMMON is enabled.
@@ -28,8 +132,8 @@ public class DebugLogger {
      * @param message The debug message to log
      */
     public static void common(ControllerHost host, PadConfigurationManager padConfigManager, String message) {
-        if (padConfigManager != null && padConfigManager.isDebugCommon()) {
-            host.println("[DEBUG_COMMON] " + message);
+        if (isEnabled(padConfigManager, Category.COMMON)) {
+            emit(host, Category.COMMON, message);
         }
     }
     
@@ -41,8 +145,8 @@ public class DebugLogger {
      * @param message The debug message to log
      */
     public static void perf(ControllerHost host, PadConfigurationManager padConfigManager, String message) {
-        if (padConfigManager != null && padConfigManager.isDebugPerf()) {
-            host.println("[DEBUG_PERF] " + message);
+        if (isEnabled(padConfigManager, Category.PERF)) {
+            emit(host, Category.PERF, message);
         }
     }
     
@@ -54,8 +158,8 @@ public class DebugLogger {
      * @param message The debug message to log
      */
     public static void user(ControllerHost host, PadConfigurationManager padConfigManager, String message) {
-        if (padConfigManager != null && padConfigManager.isDebugUser()) {
-            host.println("[DEBUG_USER] " + message);
+        if (isEnabled(padConfigManager, Category.USER)) {
+            emit(host, Category.USER, message);
         }
     }
     
@@ -67,8 +171,8 @@ public class DebugLogger {
      * @param message The debug message to log
      */
     public static void clip(ControllerHost host, PadConfigurationManager padConfigManager, String message) {
-        if (padConfigManager != null && padConfigManager.isDebugClip()) {
-            host.println("[DEBUG_CLIP] " + message);
+        if (isEnabled(padConfigManager, Category.CLIP)) {
+            emit(host, Category.CLIP, message);
         }
     }
     
@@ -81,8 +185,8 @@ public class DebugLogger {
      * @param args The arguments for formatting
      */
     public static void commonf(ControllerHost host, PadConfigurationManager padConfigManager, String format, Object... args) {
-        if (padConfigManager != null && padConfigManager.isDebugCommon()) {
-            host.println("[DEBUG_COMMON] " + String.format(format, args));
+        if (isEnabled(padConfigManager, Category.COMMON)) {
+            emit(host, Category.COMMON, String.format(format, args));
         }
     }
     
@@ -95,8 +199,8 @@ public class DebugLogger {
      * @param args The arguments for formatting
      */
     public static void perff(ControllerHost host, PadConfigurationManager padConfigManager, String format, Object... args) {
-        if (padConfigManager != null && padConfigManager.isDebugPerf()) {
-            host.println("[DEBUG_PERF] " + String.format(format, args));
+        if (isEnabled(padConfigManager, Category.PERF)) {
+            emit(host, Category.PERF, String.format(format, args));
         }
     }
     
@@ -109,8 +213,8 @@ public class DebugLogger {
      * @param args The arguments for formatting
      */
     public static void userf(ControllerHost host, PadConfigurationManager padConfigManager, String format, Object... args) {
-        if (padConfigManager != null && padConfigManager.isDebugUser()) {
-            host.println("[DEBUG_USER] " + String.format(format, args));
+        if (isEnabled(padConfigManager, Category.USER)) {
+            emit(host, Category.USER, String.format(format, args));
         }
     }
     
@@ -123,8 +227,8 @@ public class DebugLogger {
      * @param args The arguments for formatting
      */
     public static void clipf(ControllerHost host, PadConfigurationManager padConfigManager, String format, Object... args) {
-        if (padConfigManager != null && padConfigManager.isDebugClip()) {
-            host.println("[DEBUG_CLIP] " + String.format(format, args));
+        if (isEnabled(padConfigManager, Category.CLIP)) {
+            emit(host, Category.CLIP, String.format(format, args));
         }
     }
     
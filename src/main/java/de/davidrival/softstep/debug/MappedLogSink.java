@@ -0,0 +1,195 @@
+package de.davidrival.softstep.debug;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Debug log sink which writes compact binary records into memory mapped files.
+ * <p>
+ * Logging on the host thread is a memory copy into the active segment, no I/O and no console.
+ * There are two segments, when the active one is full logging continues in the other one and a
+ * background virtual thread flushes the full segment to disk, archives it as a timestamped file
+ * (keeping the newest {@link #ARCHIVED_FILES}) and hands it back. The background thread also
+ * flushes the active segment once a second and prepares a short summary for the Bitwig console.
+ * If both segments are busy records are dropped and counted.
+ * <p>
+ * Record layout: 8 bytes epoch millis, 1 byte category, 2 bytes length, UTF-8 message.
+ * A timestamp of 0 marks the end of the records in a segment.
+ */
+public class MappedLogSink {
+
+    public static final int SEGMENT_BYTES = 1 << 20;
+    public static final int ARCHIVED_FILES = 8;
+    public static final int SUMMARY_INTERVAL_MS = 10_000;
+
+    private static final int RECORD_HEADER_BYTES = 8 + 1 + 2;
+    private static final int END_MARKER_BYTES = 8;
+    private static final int MAX_MESSAGE_BYTES = 0xFFFF;
+    private static final int FLUSH_INTERVAL_MS = 1000;
+    /** close() runs on the host thread during exit, the interrupted background thread only gets this long */
+    private static final int CLOSE_JOIN_MS = 100;
+
+    private final Path directory;
+    private final Path[] segmentFiles = new Path[2];
+    private final MappedByteBuffer[] segments = new MappedByteBuffer[2];
+    /** Set while a segment can take records, cleared while the background thread archives it */
+    private final AtomicBoolean[] segmentFree = {new AtomicBoolean(true), new AtomicBoolean(true)};
+
+    private final BlockingQueue<Integer> fullSegments = new ArrayBlockingQueue<>(2);
+    private final AtomicReference<String> pendingSummary = new AtomicReference<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /** Only written by the logging thread, volatile as the background thread flushes and counts with them */
+    private volatile int active = 0;
+    private volatile long records = 0;
+    private volatile long dropped = 0;
+
+    public MappedLogSink(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        for (int i = 0; i < segments.length; i++) {
+            segmentFiles[i] = directory.resolve("softstepper-debug-segment-" + i + ".bin");
+            try (FileChannel channel = FileChannel.open(segmentFiles[i], StandardOpenOption.CREATE
+                    , StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+            }
+        }
+        segmentFree[0].set(false); // segment 0 is the active one
+        worker = Thread.ofVirtual().name("softstepper-log-sink").start(this::run);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Appends a record, called from the logging thread (normally the host thread).
+     */
+    public void append(int category, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_MESSAGE_BYTES);
+        int size = RECORD_HEADER_BYTES + length;
+
+        // keep room for the end marker
+        if (segments[active].remaining() < size + END_MARKER_BYTES && !switchSegment()) {
+            dropped++;
+            return;
+        }
+        MappedByteBuffer segment = segments[active];
+        segment.putLong(System.currentTimeMillis());
+        segment.put((byte) category);
+        segment.putShort((short) length);
+        segment.put(bytes, 0, length);
+        // overwritten by the next record, a reused segment still holds old records behind it
+        segment.putLong(segment.position(), 0L);
+        records++;
+    }
+
+    private boolean switchSegment() {
+        int next = 1 - active;
+        if (!segmentFree[next].compareAndSet(true, false)) {
+            return false;
+        }
+        fullSegments.offer(active);
+        active = next;
+        segments[active].clear();
+        return true;
+    }
+
+    /**
+     * @return a summary prepared by the background thread since the last call, null if there is none
+     */
+    public String pollSummary() {
+        return pendingSummary.getAndSet(null);
+    }
+
+    /**
+     * Stops the background thread and writes what is in the active segment to disk.
+     */
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(CLOSE_JOIN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segments[active].force();
+    }
+
+    private void run() {
+        long nextSummary = System.currentTimeMillis() + SUMMARY_INTERVAL_MS;
+        long lastRecords = 0;
+        long lastDropped = 0;
+        long archived = 0;
+
+        while (running) {
+            try {
+                Integer full = fullSegments.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (full != null) {
+                    archive(full);
+                    archived++;
+                } else {
+                    segments[active].force();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                pendingSummary.set("Log sink: archiving failed - " + e.getMessage());
+            }
+
+            long now = System.currentTimeMillis();
+            if (now >= nextSummary) {
+                // a record appended meanwhile is in the next summary
+                long currentRecords = records;
+                long currentDropped = dropped;
+                if (currentRecords != lastRecords || currentDropped != lastDropped) {
+                    pendingSummary.set(String.format("Log sink: %d records, %d dropped in the last %ds, %d segments archived to %s"
+                            , currentRecords - lastRecords, currentDropped - lastDropped
+                            , SUMMARY_INTERVAL_MS / 1000, archived, directory));
+                }
+                lastRecords = currentRecords;
+                lastDropped = currentDropped;
+                nextSummary = now + SUMMARY_INTERVAL_MS;
+            }
+        }
+    }
+
+    private void archive(int segment) throws IOException {
+        try {
+            segments[segment].force();
+            String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+            Files.copy(segmentFiles[segment], directory.resolve("softstepper-debug-" + stamp + ".bin")
+                    , StandardCopyOption.REPLACE_EXISTING);
+            pruneArchive();
+        } finally {
+            segmentFree[segment].set(true);
+        }
+    }
+
+    private void pruneArchive() throws IOException {
+        try (var files = Files.list(directory)) {
+            Path[] archived = files
+                    .filter(p -> p.getFileName().toString().startsWith("softstepper-debug-2"))
+                    .sorted()
+                    .toArray(Path[]::new);
+            for (int i = 0; i < archived.length - ARCHIVED_FILES; i++) {
+                Files.deleteIfExists(archived[i]);
+            }
+        }
+    }
+}
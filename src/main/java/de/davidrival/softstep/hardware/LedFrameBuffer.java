@@ -0,0 +1,111 @@
+package de.davidrival.softstep.hardware;
+
+import java.util.Arrays;
+
+/**
+ * Shadow of the Softsteps LEDs, one mode per pad and color.
+ * <p>
+ * {@link #desired} is what the script wants to show, {@link #sent} what was last written
+ * to the device. Writes only update the desired state and mark the entry dirty if it
+ * differs from the sent one, {@link #flush(LedWriter)} then writes exactly the dirty entries.
+ * Any number of updates of a LED between two flushes cost at most one message sequence.
+ * <p>
+ * Only used on the host thread.
+ */
+public class LedFrameBuffer {
+
+    public static final int NUM_LEDS = 10;
+    public static final int NUM_COLORS = 3;
+
+    /** State of an entry which the device might show anything for */
+    public static final int UNKNOWN = -1;
+
+    /** Entry mask selecting all LEDs */
+    public static final int ALL_ENTRIES = (1 << (NUM_LEDS * NUM_COLORS)) - 1;
+
+    private static final int OFF = LedLight.OFF.data2ForLed;
+
+    public interface LedWriter {
+        void writeLed(int number, int color, int mode);
+    }
+
+    private final int[] desired = new int[NUM_LEDS * NUM_COLORS];
+    private final int[] sent = new int[NUM_LEDS * NUM_COLORS];
+
+    /** Bit n set = entry n (led * 3 + color) differs from the device */
+    private int dirtyMask = 0;
+
+    public LedFrameBuffer() {
+        Arrays.fill(desired, OFF);
+        invalidate();
+    }
+
+    /**
+     * Forgets what the device shows, the next flush writes every entry.
+     */
+    public void invalidate() {
+        Arrays.fill(sent, UNKNOWN);
+        dirtyMask = ALL_ENTRIES;
+    }
+
+    public void set(int number, int color, int mode) {
+        if (number < 0 || number >= NUM_LEDS || color < 0 || color >= NUM_COLORS) {
+            return;
+        }
+        int entry = number * NUM_COLORS + color;
+        desired[entry] = mode;
+        if (sent[entry] == mode) {
+            dirtyMask &= ~(1 << entry);
+        } else {
+            dirtyMask |= 1 << entry;
+        }
+    }
+
+    public int getDesired(int number, int color) {
+        return desired[number * NUM_COLORS + color];
+    }
+
+    public boolean isDirty() {
+        return dirtyMask != 0;
+    }
+
+    /**
+     * @return entry mask of all colors of one LED, bit n = entry n (led * 3 + color)
+     */
+    public static int entriesOf(int number) {
+        return ((1 << NUM_COLORS) - 1) << (number * NUM_COLORS);
+    }
+
+    public int flush(LedWriter writer) {
+        return flush(writer, ALL_ENTRIES, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes the entries within the mask which changed since the last flush.
+     * Colors going off are written before colors going on, so a LED never shows two colors at once.
+     * Entries beyond the limit stay dirty for the next flush.
+     *
+     * @param entryMask the entries to consider, see {@link #entriesOf(int)}
+     * @param maxLeds at most this many LED sequences are written
+     * @return number of LED sequences written
+     */
+    public int flush(LedWriter writer, int entryMask, int maxLeds) {
+        int mask = dirtyMask & entryMask;
+        if (mask == 0 || maxLeds <= 0) return 0;
+
+        int written = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean offPass = pass == 0;
+            for (int m = mask; m != 0 && written < maxLeds; m &= m - 1) {
+                int entry = Integer.numberOfTrailingZeros(m);
+                if ((desired[entry] == OFF) != offPass) continue;
+
+                writer.writeLed(entry / NUM_COLORS, entry % NUM_COLORS, desired[entry]);
+                sent[entry] = desired[entry];
+                dirtyMask &= ~(1 << entry);
+                written++;
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,130 @@
+package de.davidrival.softstep.hardware;
+
+import com.bitwig.extension.controller.api.MidiOut;
+
+/**
+ * Encodes LED updates into the CC sequence the Softstep understands.
+ * <p>
+ * A LED update is select (CC 40), color (CC 41), mode (CC 42) followed by padding messages.
+ * The sequences for all LED / color / mode combinations are precomputed as packed messages,
+ * encoding is a table lookup. The select is left out if the previous update went to the same LED,
+ * so redrawing the colors of one LED costs one select only.
+ * <p>
+ * Only used on the host thread.
+ */
+public class LedMessageEncoder {
+
+    public static final int LED_SELECT_DATA1 = 40;
+    public static final int LED_COLOR_DATA1 = 41;
+    public static final int LED_MODE_DATA1 = 42;
+
+    public static final int NUM_MODES = LedLight.values().length;
+
+    private static final int NO_SELECTION = -1;
+
+    /**
+     * How many 0xB0,0,0 messages follow each LED update. The device was seen to drop updates
+     * without them, so {@link #FULL} is the default.
+     */
+    public enum PaddingPolicy {
+        FULL(3),
+        SINGLE(1),
+        NONE(0);
+
+        public final int messages;
+
+        PaddingPolicy(int messages) {
+            this.messages = messages;
+        }
+    }
+
+    /** Full sequence per (led, color, mode), select first, packed as status << 16 | data1 << 8 | data2 */
+    private final int[][] sequences = new int[LedFrameBuffer.NUM_LEDS * LedFrameBuffer.NUM_COLORS * NUM_MODES][];
+
+    private PaddingPolicy paddingPolicy = PaddingPolicy.FULL;
+    private boolean elideSelect = true;
+    private int selectedLed = NO_SELECTION;
+
+    public LedMessageEncoder() {
+        buildSequences();
+    }
+
+    public void setPaddingPolicy(PaddingPolicy paddingPolicy) {
+        this.paddingPolicy = paddingPolicy;
+        buildSequences();
+    }
+
+    public PaddingPolicy getPaddingPolicy() {
+        return paddingPolicy;
+    }
+
+    public void setElideSelect(boolean elideSelect) {
+        this.elideSelect = elideSelect;
+        forgetSelection();
+    }
+
+    /**
+     * The next update sends its select again, call when the device might have another LED selected.
+     */
+    public void forgetSelection() {
+        selectedLed = NO_SELECTION;
+    }
+
+    /**
+     * @return messages of an update including the select, the most a single update can cost
+     */
+    public int maxMessagesPerLed() {
+        return 3 + paddingPolicy.messages;
+    }
+
+    /**
+     * Sends one LED update.
+     *
+     * @return number of MIDI messages sent
+     */
+    public int write(MidiOut midiOut, int number, int color, int mode) {
+        int[] sequence = sequenceOf(number, color, mode);
+        int first = elideSelect && number == selectedLed ? 1 : 0;
+        for (int i = first; i < sequence.length; i++) {
+            int message = sequence[i];
+            midiOut.sendMidi(message >>> 16, (message >>> 8) & 0xFF, message & 0xFF);
+        }
+        selectedLed = number;
+        return sequence.length - first;
+    }
+
+    private int[] sequenceOf(int number, int color, int mode) {
+        if (number < 0 || number >= LedFrameBuffer.NUM_LEDS
+                || color < 0 || color >= LedFrameBuffer.NUM_COLORS
+                || mode < 0 || mode >= NUM_MODES) {
+            return encode(number, color, mode);
+        }
+        return sequences[(number * LedFrameBuffer.NUM_COLORS + color) * NUM_MODES + mode];
+    }
+
+    private void buildSequences() {
+        for (int number = 0; number < LedFrameBuffer.NUM_LEDS; number++) {
+            for (int color = 0; color < LedFrameBuffer.NUM_COLORS; color++) {
+                for (int mode = 0; mode < NUM_MODES; mode++) {
+                    sequences[(number * LedFrameBuffer.NUM_COLORS + color) * NUM_MODES + mode] = encode(number, color, mode);
+                }
+            }
+        }
+        forgetSelection();
+    }
+
+    private int[] encode(int number, int color, int mode) {
+        int[] sequence = new int[3 + paddingPolicy.messages];
+        sequence[0] = pack(LED_SELECT_DATA1, number); // select led, numbered from 0
+        sequence[1] = pack(LED_COLOR_DATA1, color); // green = 0, red = 1, yellow = 2
+        sequence[2] = pack(LED_MODE_DATA1, mode); // range(x) = (off, on, blink, fast, flash)
+        for (int i = 3; i < sequence.length; i++) {
+            sequence[i] = pack(0, 0);
+        }
+        return sequence;
+    }
+
+    private static int pack(int data1, int data2) {
+        return (0xB0 << 16) | ((data1 & 0x7F) << 8) | (data2 & 0x7F);
+    }
+}
@@ -0,0 +1,113 @@
+package de.davidrival.softstep.hardware;
+
+import com.bitwig.extension.controller.api.MidiOut;
+
+/**
+ * Queue of the short messages, LED and display commands in front of {@link MidiOut}.
+ * <p>
+ * Every command is packed into one long, so a LED command (select, color, mode + padding)
+ * is enqueued as a whole and can never interleave with other messages. The queue is drained on the
+ * flush of the host in {@link SoftstepHardwareBase#flush()}, the sink writes in enqueue order.
+ * The first command after a drain requests that flush. A full ring grows instead of sending
+ * anything early, so the sink only ever runs from {@link #drain()}.
+ * <p>
+ * Only used on the host thread, which is where Bitwig calls all observers and callbacks.
+ * <p>
+ * Command layout: bits 56-63 type, bits 16-23 / 8-15 / 0-7 the three payload bytes
+ */
+public class MidiCommandQueue {
+
+    public static final int TYPE_LED = 1;
+    public static final int TYPE_SHORT_MIDI = 2;
+    public static final int TYPE_DISPLAY = 3;
+
+    private static final int INITIAL_CAPACITY = 256; // power of two
+
+    public interface CommandConsumer {
+        void accept(int type, int byte0, int byte1, int byte2);
+    }
+
+    private long[] commands = new long[INITIAL_CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    /** Set while a flush was requested and the queue wasn't drained yet */
+    private boolean flushPending = false;
+    private final Runnable flushRequester;
+    private final CommandConsumer sink;
+
+    /**
+     * @param sink writes the drained commands to the hardware
+     * @param flushRequester asks the host for a flush when the first command after a drain comes in
+     */
+    public MidiCommandQueue(CommandConsumer sink, Runnable flushRequester) {
+        this.sink = sink;
+        this.flushRequester = flushRequester;
+    }
+
+    public void offerLed(int number, int color, int mode) {
+        offer(pack(TYPE_LED, number, color, mode));
+    }
+
+    public void offerShortMidi(int status, int data1, int data2) {
+        offer(pack(TYPE_SHORT_MIDI, status, data1, data2));
+    }
+
+    public void offerDisplay(int position, int character) {
+        offer(pack(TYPE_DISPLAY, position, character, 0));
+    }
+
+    /**
+     * Drains all queued commands in enqueue order, commands queued by the sink are drained as well.
+     */
+    public void drain() {
+        flushPending = false;
+        while (size > 0) {
+            long command = commands[head];
+            head = (head + 1) & (commands.length - 1);
+            size--;
+            sink.accept((int) (command >>> 56)
+                    , (int) (command >>> 16) & 0xFF
+                    , (int) (command >>> 8) & 0xFF
+                    , (int) command & 0xFF);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void offer(long command) {
+        if (size == commands.length) {
+            grow();
+        }
+        commands[(head + size) & (commands.length - 1)] = command;
+        size++;
+
+        if (!flushPending) {
+            flushPending = true;
+            if (flushRequester != null) {
+                flushRequester.run();
+            }
+        }
+    }
+
+    /**
+     * Doubles the ring, the queued commands move to the start of the new one.
+     */
+    private void grow() {
+        long[] grown = new long[commands.length * 2];
+        int firstPart = commands.length - head;
+        System.arraycopy(commands, head, grown, 0, firstPart);
+        System.arraycopy(commands, 0, grown, firstPart, head);
+        commands = grown;
+        head = 0;
+    }
+
+    private static long pack(int type, int byte0, int byte1, int byte2) {
+        return ((long) type << 56)
+                | ((long) (byte0 & 0xFF) << 16)
+                | ((long) (byte1 & 0xFF) << 8)
+                | (byte2 & 0xFF);
+    }
+}
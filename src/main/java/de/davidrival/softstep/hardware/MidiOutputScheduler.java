@@ -0,0 +1,169 @@
+package de.davidrival.softstep.hardware;
+
+import com.bitwig.extension.controller.api.MidiOut;
+
+import java.util.Arrays;
+
+/**
+ * Writes the pending output to the Softstep by priority, within a budget of MIDI messages per flush.
+ * <p>
+ * Every LED belongs to one {@link OutputLane}, the display has its own lane. On each flush the lanes
+ * are served in order ({@link OutputLane#CLIP_STATE} first) until the budget is used up, whatever is
+ * left stays pending and another flush is requested. A page repaint therefore can't hold back a clip
+ * state LED for more than one flush.
+ * <p>
+ * Only used on the host thread, the commands arrive through the {@link MidiCommandQueue}.
+ */
+public class MidiOutputScheduler {
+
+    /** Messages a single LED update costs at most: select, color, mode and 3 padding messages */
+    public static final int LED_SEQUENCE_MESSAGES = 6;
+    public static final int DEFAULT_MESSAGES_PER_FLUSH = 120;
+
+    public static final int DISPLAY_CHARS = 4;
+    public static final int DISPLAY_DATA1 = 50;
+
+    private static final OutputLane[] LANES = OutputLane.values();
+
+    private final MidiOut midiOut;
+    private final Runnable flushRequester;
+
+    private final LedFrameBuffer leds = new LedFrameBuffer();
+    private final LedMessageEncoder encoder = new LedMessageEncoder();
+
+    /** Lane of each LED and the framebuffer entries each lane owns */
+    private final OutputLane[] ledLanes = new OutputLane[LedFrameBuffer.NUM_LEDS];
+    private final int[] laneEntryMasks = new int[LANES.length];
+
+    /** Latest character per display position and what the device shows */
+    private final int[] displayChars = new int[DISPLAY_CHARS];
+    private final int[] sentDisplayChars = new int[DISPLAY_CHARS];
+    private int displayPendingMask = 0;
+
+    private int messagesPerFlush = DEFAULT_MESSAGES_PER_FLUSH;
+
+    /** Messages sent by the running flush */
+    private int sentInFlush = 0;
+
+    public MidiOutputScheduler(MidiOut midiOut, Runnable flushRequester) {
+        this.midiOut = midiOut;
+        this.flushRequester = flushRequester;
+        for (int led = 0; led < ledLanes.length; led++) {
+            ledLanes[led] = OutputLane.COSMETIC;
+        }
+        laneEntryMasks[OutputLane.COSMETIC.ordinal()] = LedFrameBuffer.ALL_ENTRIES;
+        Arrays.fill(sentDisplayChars, LedFrameBuffer.UNKNOWN);
+    }
+
+    public void setLed(int number, int color, int mode) {
+        leds.set(number, color, mode);
+    }
+
+    public void setDisplayChar(int position, int character) {
+        if (position < 0 || position >= DISPLAY_CHARS) return;
+        displayChars[position] = character;
+        // only characters which differ from the device are sent
+        if (sentDisplayChars[position] == character) {
+            displayPendingMask &= ~(1 << position);
+        } else {
+            displayPendingMask |= 1 << position;
+        }
+    }
+
+    public void setLedLane(int number, OutputLane lane) {
+        if (number < 0 || number >= ledLanes.length || lane == OutputLane.DISPLAY) return;
+
+        int entries = LedFrameBuffer.entriesOf(number);
+        laneEntryMasks[ledLanes[number].ordinal()] &= ~entries;
+        laneEntryMasks[lane.ordinal()] |= entries;
+        ledLanes[number] = lane;
+    }
+
+    public OutputLane getLedLane(int number) {
+        return ledLanes[number];
+    }
+
+    /**
+     * @param messages MIDI messages per flush, at least one LED update is always allowed
+     */
+    public void setMessagesPerFlush(int messages) {
+        this.messagesPerFlush = Math.max(LED_SEQUENCE_MESSAGES, messages);
+    }
+
+    public int getMessagesPerFlush() {
+        return messagesPerFlush;
+    }
+
+    public void setLedPaddingPolicy(LedMessageEncoder.PaddingPolicy policy) {
+        encoder.setPaddingPolicy(policy);
+    }
+
+    /**
+     * Forgets what LEDs and display show, e.g. after switching the device mode.
+     */
+    public void invalidate() {
+        leds.invalidate();
+        encoder.forgetSelection();
+        Arrays.fill(sentDisplayChars, LedFrameBuffer.UNKNOWN);
+    }
+
+    public boolean hasPending() {
+        return leds.isDirty() || displayPendingMask != 0;
+    }
+
+    /**
+     * Writes pending output lane by lane within the budget and asks for another flush if something is left.
+     *
+     * @return number of MIDI messages sent
+     */
+    public int flush() {
+        int sent = flush(messagesPerFlush);
+        if (hasPending() && flushRequester != null) {
+            flushRequester.run();
+        }
+        return sent;
+    }
+
+    /**
+     * Writes everything pending regardless of the budget, e.g. on exit when no flush will follow.
+     */
+    public int flushAll() {
+        return flush(Integer.MAX_VALUE);
+    }
+
+    private int flush(int budget) {
+        sentInFlush = 0;
+        for (OutputLane lane : LANES) {
+            int left = budget - sentInFlush;
+            if (left <= 0) break;
+
+            if (lane == OutputLane.DISPLAY) {
+                sentInFlush += flushDisplay(left);
+            } else {
+                // plan with the worst case, elided selects leave budget for the next lane
+                leds.flush(this::writeLed, laneEntryMasks[lane.ordinal()], left / encoder.maxMessagesPerLed());
+            }
+        }
+        return sentInFlush;
+    }
+
+    private int flushDisplay(int budget) {
+        int sent = 0;
+        for (int m = displayPendingMask; m != 0 && sent < budget; m &= m - 1) {
+            int position = Integer.numberOfTrailingZeros(m);
+            midiOut.sendMidi(SoftstepHardwareBase.STATUS_BYTE, DISPLAY_DATA1 + position, displayChars[position]);
+            sentDisplayChars[position] = displayChars[position];
+            displayPendingMask &= ~(1 << position);
+            sent++;
+        }
+        if (sent > 0) {
+            // don't rely on the LED selection surviving other messages
+            encoder.forgetSelection();
+        }
+        return sent;
+    }
+
+    private void writeLed(int number, int color, int mode) {
+        sentInFlush += encoder.write(midiOut, number, color, mode);
+    }
+}
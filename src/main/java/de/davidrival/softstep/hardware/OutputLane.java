@@ -0,0 +1,15 @@
+package de.davidrival.softstep.hardware;
+
+/**
+ * Priority lanes of the {@link MidiOutputScheduler}, highest priority first.
+ */
+public enum OutputLane {
+    /** Clip launch and record state, what matters during a take */
+    CLIP_STATE,
+    /** Mute, arm and track selection feedback */
+    CHANNEL_STRIP,
+    /** The 4 character display */
+    DISPLAY,
+    /** Navigation and anything else decorative */
+    COSMETIC
+}
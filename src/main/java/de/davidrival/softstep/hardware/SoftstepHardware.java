@@ -5,7 +5,6 @@ import de.davidrival.softstep.controller.LedStates;
 import de.davidrival.softstep.controller.Page;
 
 import java.util.ArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class SoftstepHardware extends SoftstepHardwareBase{
 
@@ -13,24 +12,22 @@ public class SoftstepHardware extends SoftstepHardwareBase{
         super(midiOut);
     }
 
+    public SoftstepHardware(MidiOut midiOut, Runnable flushRequester) {
+        super(midiOut, flushRequester);
+    }
+
+    /**
+     * Shows the LEDs of a page. No reset before, the framebuffer only sends the LEDs
+     * which differ from what the previous page left on the device.
+     */
     public void showAllLeds(Page currentPage) {
-        resetLeds();
-        AtomicInteger i = new AtomicInteger();
-        currentPage.ledStates.forEach(
-                led -> super.setLed(i.getAndIncrement()
-                        , led.ledColor.data2ForLed
-                        , led.ledFlashing.data2ForLed)
-        );
+        showPageLeds(currentPage.ledStates);
     }
 
     public void showPageLeds(ArrayList<LedStates> ledStateBuffer) {
-        resetLeds();
-        AtomicInteger i = new AtomicInteger();
-        ledStateBuffer.forEach(
-                led -> super.setLed(i.getAndIncrement()
-                        , led.ledColor.data2ForLed
-                        , led.ledFlashing.data2ForLed)
-        );
+        for (int i = 0; i < ledStateBuffer.size(); i++) {
+            drawLedAt(i, ledStateBuffer.get(i));
+        }
     }
 
 
@@ -2,49 +2,101 @@ package de.davidrival.softstep.hardware;
 
 import com.bitwig.extension.controller.api.MidiOut;
 import de.davidrival.softstep.controller.LedStates;
-import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
-@Builder
 public class SoftstepHardwareBase {
 
-    public static final String SOFTSTEPMODE_STANDALONE = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 04 00 00 00 00 00 00 00 00 17 1f 00 00 00 00 00 f7";
-    public static final String SOFTSTEP_MODE_HOST = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 04 01 00 00 00 00 00 00 00 2f 7e 00 00 00 00 02 f7";
-    public static final String TETHER_A = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 03 00 00 00 00 00 00 00 00 50 07 00 00 00 00 00 f7";
-    public static final String BACKLIGHT_ON = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 04 00 05 08 25 01 20 00 00 7b 2c 00 00 00 0c f7";
-    public static final String BACKLIGHT_OFF = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 04 00 05 08 25 00 20 00 00 4c 1c 00 00 00 0c f7";
-    public static final String TETHER_B = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 03 01 00 00 00 00 00 00 00 68 66 00 00 00 00 00 f7";
     private final MidiOut midiOut;
 
+    /** All short messages go through here and are written to the port on the host thread only */
+    private final MidiCommandQueue commandQueue;
+
+    /** Pending LED and display state, written out by priority within a budget per flush */
+    private final MidiOutputScheduler outputScheduler;
+
     public static final int STATUS_BYTE = 176;
     public static final int NAVIGATION_DATA1 = 100;
 
     public SoftstepHardwareBase(MidiOut midiOut) {
+        this(midiOut, null);
+    }
+
+    /**
+     * @param flushRequester asks the host to call {@link #flush()}, usually host::requestFlush
+     */
+    public SoftstepHardwareBase(MidiOut midiOut, Runnable flushRequester) {
         this.midiOut = midiOut;
+        this.outputScheduler = new MidiOutputScheduler(midiOut, flushRequester);
+        this.commandQueue = new MidiCommandQueue(this::send, flushRequester);
         init();
     }
 
+    /**
+     * Writes what was queued so far to the hardware. Called by the host in flush().
+     * LED and display commands only update the pending state, the output scheduler then sends
+     * the changes by priority and carries what exceeds the budget over to the next flush.
+     */
+    public void flush() {
+        commandQueue.drain();
+        outputScheduler.flush();
+    }
+
+    private void send(int type, int byte0, int byte1, int byte2) {
+        switch (type) {
+            case MidiCommandQueue.TYPE_LED:
+                outputScheduler.setLed(byte0, byte1, byte2);
+                break;
+            case MidiCommandQueue.TYPE_DISPLAY:
+                outputScheduler.setDisplayChar(byte0, byte1);
+                break;
+            default:
+                midiOut.sendMidi(byte0, byte1, byte2);
+        }
+    }
+
+    /**
+     * Which lane the updates of a LED are sent in, depends on what the pad does on the current page.
+     * Host thread only.
+     */
+    public void setLedLane(int index, OutputLane lane) {
+        outputScheduler.setLedLane(index, lane);
+    }
+
+    public void setMessagesPerFlush(int messages) {
+        outputScheduler.setMessagesPerFlush(messages);
+    }
+
+    public void setLedPaddingPolicy(LedMessageEncoder.PaddingPolicy policy) {
+        outputScheduler.setLedPaddingPolicy(policy);
+    }
+
     public void init() {
         // Switch to host mode - script controls everything, no preset needed
-        midiOut.sendSysex(SOFTSTEP_MODE_HOST); // Host mode - script controls everything
-        midiOut.sendSysex(TETHER_A); // Tether mode A
-        midiOut.sendSysex(BACKLIGHT_ON); // backlight on
+        midiOut.sendSysex(SoftstepSysex.MODE_HOST); // Host mode - script controls everything
+        midiOut.sendSysex(SoftstepSysex.TETHER_A); // Tether mode A
+        midiOut.sendSysex(SoftstepSysex.BACKLIGHT_ON); // backlight on
+        // after the mode switch LEDs and display can show anything
+        outputScheduler.invalidate();
     }
 
     public void exit() {
         displayText("   ");
         resetLeds();
-        midiOut.sendSysex(BACKLIGHT_OFF); // backlight off
+        // no flush after exit, so write out the reset before the backlight goes off
+        commandQueue.drain();
+        outputScheduler.flushAll();
+        midiOut.sendSysex(SoftstepSysex.BACKLIGHT_OFF); // backlight off
 
-//        midiOut.sendSysex(SOFTSTEPMODE_STANDALONE); // standalone - the controller determins gestures and midi mapping
-//        midiOut.sendSysex(TETHER_B); // tether
+//        midiOut.sendSysex(SoftstepSysex.MODE_STANDALONE); // standalone - the controller determins gestures and midi mapping
+//        midiOut.sendSysex(SoftstepSysex.TETHER_B); // tether
     }
 
     public void drawLedAt(int index, LedStates ledStates) {
         // strange.. needs to turn of on all colors before drawing
+        // only costs messages for colors which actually change, see LedFrameBuffer
         setLed(index, LedColor.GREEN.data2ForLed, LedLight.OFF.data2ForLed);
         setLed(index, LedColor.YELLOW.data2ForLed, LedLight.OFF.data2ForLed);
         setLed(index, LedColor.RED.data2ForLed, LedLight.OFF.data2ForLed);
@@ -60,19 +112,15 @@ public class SoftstepHardwareBase {
                 , ledStates.ledFlashing.data2ForLed);
     }
     /**
-     * Sets led number <led> (numbered from 1 to 10) to given color and mode
+     * Sets led number <led> (numbered from 1 to 10) to given color and mode.
+     * The select / color / mode sequence is queued as one command and sent on the next flush.
      *
      * @param number  select led, numbered from 0
      * @param color  green = 0, red = 1, yellow = 2
      * @param mode  range(x) = (off, on, blink, fast, flash)
      */
     public void setLed(int number, int color, int mode) {
-        midiOut.sendMidi(0xB0,40,number); // select led, numbered from 0
-        midiOut.sendMidi(0xB0,41,color); // green = 0, red = 1, yellow = 2
-        midiOut.sendMidi(0xB0,42,mode);// range(x) = (off, on, blink, fast, flash)
-        midiOut.sendMidi(0xB0,0,0);
-        midiOut.sendMidi(0xB0,0,0);
-        midiOut.sendMidi(0xB0,0,0);
+        commandQueue.offerLed(number, color, mode);
     }
 
     /**
@@ -101,7 +149,7 @@ public class SoftstepHardwareBase {
     public void displayText(String text) {
         for(int i=0; i<4; i++) {
             int cc = i < text.length() ? text.charAt(i) : 0x20;
-            midiOut.sendMidi(176,50+i,cc);
+            commandQueue.offerDisplay(i,cc);
         }
     }
 
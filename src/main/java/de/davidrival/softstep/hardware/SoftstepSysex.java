@@ -0,0 +1,151 @@
+package de.davidrival.softstep.hardware;
+
+/**
+ * SysEx commands of the Softstep, prebuilt as byte arrays so sending them doesn't parse hex strings.
+ * <p>
+ * The device commands come in two frame layouts, each one known from a recorded command which
+ * serves as template. New commands are built by changing the value bytes of a template,
+ * the checksum is adjusted by the {@link Builder}: it is a CRC-16 (CCITT polynomial 0x1021) over the
+ * frame up to {@link Frame#crcEnd}, stored as two 7 bit bytes (high byte first). The CRC is linear,
+ * so the new checksum is the templates checksum XOR the CRC of the changed bits - initial value and
+ * final XOR of the device don't need to be known.
+ * <p>
+ * The last byte of a frame differs between some commands without being part of the checksum,
+ * it is taken from the template unless set with {@link Builder#tail(int)}.
+ * <p>
+ * How the device packs checksum bits beyond the low 7 of each byte is unknown, only the recorded
+ * commands (the constants below) are verified against it. Other values are built but unverified.
+ */
+public final class SoftstepSysex {
+
+    /**
+     * Frame layouts, byte positions are indices into the whole message including F0 and F7.
+     */
+    public enum Frame {
+        /** Device mode and tether commands: command byte, then its value */
+        MODE("f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 04 00 00 00 00 00 00 00 00 17 1f 00 00 00 00 00 f7"
+                , 26, 27, 34, 35),
+        /** Backlight: the value is the level, 0 = off */
+        BACKLIGHT("f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 04 00 05 08 25 00 20 00 00 4c 1c 00 00 00 0c f7"
+                , -1, 24, 27, 28);
+
+        private final byte[] template;
+        /** Position of the command byte, -1 if the frame has none */
+        final int commandIndex;
+        final int valueIndex;
+        /** The CRC covers the bytes before this position */
+        final int crcEnd;
+        final int checksumIndex;
+
+        Frame(String template, int commandIndex, int valueIndex, int crcEnd, int checksumIndex) {
+            this.template = parse(template);
+            this.commandIndex = commandIndex;
+            this.valueIndex = valueIndex;
+            this.crcEnd = crcEnd;
+            this.checksumIndex = checksumIndex;
+        }
+    }
+
+    public static final int COMMAND_TETHER = 0x03;
+    public static final int COMMAND_MODE = 0x04;
+
+    public static final byte[] MODE_STANDALONE = builder(Frame.MODE).command(COMMAND_MODE).value(0).build();
+    public static final byte[] MODE_HOST = builder(Frame.MODE).command(COMMAND_MODE).value(1).tail(0x02).build();
+    public static final byte[] TETHER_A = builder(Frame.MODE).command(COMMAND_TETHER).value(0).build();
+    public static final byte[] TETHER_B = builder(Frame.MODE).command(COMMAND_TETHER).value(1).build();
+    public static final byte[] BACKLIGHT_ON = backlight(1);
+    public static final byte[] BACKLIGHT_OFF = backlight(0);
+
+    private static final int CRC_POLYNOMIAL = 0x1021;
+
+    private SoftstepSysex() {
+    }
+
+    public static Builder builder(Frame frame) {
+        return new Builder(frame);
+    }
+
+    /**
+     * @param level 0 = off, 1 = on, other levels weren't recorded
+     */
+    public static byte[] backlight(int level) {
+        if (level != 0 && level != 1) {
+            throw new IllegalArgumentException("Backlight level must be 0 or 1, got " + level);
+        }
+        return builder(Frame.BACKLIGHT).value(level).build();
+    }
+
+    /**
+     * Builds a command from a frame template and fixes up its checksum.
+     */
+    public static final class Builder {
+        private final Frame frame;
+        private final byte[] message;
+
+        private Builder(Frame frame) {
+            this.frame = frame;
+            this.message = frame.template.clone();
+        }
+
+        public Builder command(int command) {
+            if (frame.commandIndex < 0) {
+                throw new IllegalStateException(frame + " frames have no command byte");
+            }
+            return set(frame.commandIndex, command);
+        }
+
+        public Builder value(int value) {
+            return set(frame.valueIndex, value);
+        }
+
+        public Builder tail(int tail) {
+            return set(message.length - 2, tail);
+        }
+
+        /**
+         * Sets any data byte of the frame, the checksum is fixed up in {@link #build()}.
+         */
+        public Builder set(int index, int value) {
+            if (index <= 0 || index >= message.length - 1 || (index >= frame.checksumIndex && index <= frame.checksumIndex + 1)) {
+                throw new IllegalArgumentException("Byte " + index + " can't be set in a " + frame + " frame");
+            }
+            if (value < 0 || value > 0x7F) {
+                throw new IllegalArgumentException("SysEx data must be 7 bit, got " + value);
+            }
+            message[index] = (byte) value;
+            return this;
+        }
+
+        public byte[] build() {
+            // CRC of the difference to the template, init 0 so the unchanged prefix adds nothing
+            int delta = 0;
+            for (int i = 0; i < frame.crcEnd; i++) {
+                delta = crc16Step(delta, (message[i] ^ frame.template[i]) & 0xFF);
+            }
+            int checksum = frame.checksumIndex;
+            message[checksum] = (byte) (frame.template[checksum] ^ ((delta >> 8) & 0x7F));
+            message[checksum + 1] = (byte) (frame.template[checksum + 1] ^ (delta & 0x7F));
+            return message.clone();
+        }
+    }
+
+    private static int crc16Step(int crc, int data) {
+        crc ^= data << 8;
+        for (int bit = 0; bit < 8; bit++) {
+            crc = (crc & 0x8000) != 0 ? (crc << 1) ^ CRC_POLYNOMIAL : crc << 1;
+        }
+        return crc & 0xFFFF;
+    }
+
+    /**
+     * @param hex bytes as hex separated by spaces, e.g. "f0 00 f7"
+     */
+    static byte[] parse(String hex) {
+        String[] tokens = hex.trim().split("\\s+");
+        byte[] bytes = new byte[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(tokens[i], 16);
+        }
+        return bytes;
+    }
+}
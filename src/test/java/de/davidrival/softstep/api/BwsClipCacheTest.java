@@ -0,0 +1,192 @@
+package de.davidrival.softstep.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static de.davidrival.softstep.api.ClipSlotStateMachine.*;
+import static org.junit.Assert.*;
+
+/**
+ * Feeds the slot observers of the hidden banks through a {@link FakeHost}, the time is the clock
+ * of a {@link ManualHostScheduler}.
+ */
+public class BwsClipCacheTest {
+
+    private static final int SCENES = 8;
+    private static final int SETTLE_MS = 250;
+
+    private FakeHost host;
+    private ManualHostScheduler scheduler;
+    private SubscriptionManager subscriptions;
+    private BwsClipCache cache;
+
+    @Before
+    public void setUp() {
+        host = new FakeHost();
+        scheduler = new ManualHostScheduler();
+        subscriptions = new SubscriptionManager(scheduler);
+        cache = new BwsClipCache(host.host, scheduler, SCENES, false, subscriptions);
+    }
+
+    private void trackAllSlots() {
+        for (int bwsSlot = 0; bwsSlot < BwsClipCache.CACHED_SLOTS; bwsSlot++) {
+            cache.track(bwsSlot, 10 + bwsSlot);
+        }
+        scheduler.advance(SETTLE_MS);
+    }
+
+    @Test
+    public void everyCachedSlotHasItsOwnBank() {
+        assertEquals(BwsClipCache.CACHED_SLOTS, host.createdBanks);
+        assertEquals(BwsClipCache.CACHED_SLOTS, host.contentObservers.size());
+        assertEquals(BwsClipCache.CACHED_SLOTS, host.playbackObservers.size());
+    }
+
+    @Test
+    public void untrackedSlotIsUnknown() {
+        for (int bwsSlot = 0; bwsSlot < BwsClipCache.CACHED_SLOTS; bwsSlot++) {
+            assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(bwsSlot, 0));
+        }
+    }
+
+    @Test
+    public void trackedSlotIsUnknownUntilTheBankSettled() {
+        cache.track(2, 40);
+        assertEquals(Integer.valueOf(40), host.values.get("bank2.scrollPosition"));
+        host.report(2, 3, PLAYING);
+
+        scheduler.advance(SETTLE_MS - 1);
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(2, 3));
+
+        scheduler.advance(1);
+        assertEquals(PLAYING, cache.stateAt(2, 3));
+        assertEquals(EMPTY, cache.stateAt(2, 4));
+    }
+
+    @Test
+    public void packedStatesDontOverlap() {
+        trackAllSlots();
+
+        // cells of neighbouring slots share words, every cell gets another state than its neighbours
+        for (int bwsSlot = 0; bwsSlot < BwsClipCache.CACHED_SLOTS; bwsSlot++) {
+            for (int scene = 0; scene < SCENES; scene++) {
+                host.report(bwsSlot, scene, (bwsSlot * SCENES + scene) % NUM_STATES);
+            }
+        }
+
+        for (int bwsSlot = 0; bwsSlot < BwsClipCache.CACHED_SLOTS; bwsSlot++) {
+            for (int scene = 0; scene < SCENES; scene++) {
+                assertEquals("slot " + bwsSlot + " scene " + scene
+                        , (bwsSlot * SCENES + scene) % NUM_STATES, cache.stateAt(bwsSlot, scene));
+            }
+        }
+    }
+
+    @Test
+    public void callbacksMoveTheStateAlong() {
+        trackAllSlots();
+
+        host.report(0, 0, RECORDING);
+        assertEquals(RECORDING, cache.stateAt(0, 0));
+        host.playbackObservers.get(0).playbackStateChanged(0, 1, false);
+        assertEquals(PLAYING, cache.stateAt(0, 0));
+        host.contentObservers.get(0).valueChanged(0, false);
+        assertEquals(EMPTY, cache.stateAt(0, 0));
+        // a stale playback callback doesn't light up the empty slot
+        host.playbackObservers.get(0).playbackStateChanged(0, 0, true);
+        assertEquals(EMPTY, cache.stateAt(0, 0));
+    }
+
+    @Test
+    public void outOfRangeIsUnknown() {
+        trackAllSlots();
+
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(-1, 0));
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(BwsClipCache.CACHED_SLOTS, 0));
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(0, -1));
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(0, SCENES));
+
+        // slots without a cache are ignored
+        cache.track(BwsClipCache.CACHED_SLOTS, 3);
+        assertEquals(BwsClipCache.CACHED_SLOTS, host.createdBanks);
+    }
+
+    @Test
+    public void callbacksForScenesPastTheBankAreIgnored() {
+        trackAllSlots();
+
+        host.report(1, SCENES, PLAYING);
+
+        // the cell after the last scene of slot 1 is the first of slot 2
+        assertEquals(EMPTY, cache.stateAt(2, 0));
+    }
+
+    @Test
+    public void releasedSlotIsUnknown() {
+        trackAllSlots();
+        host.report(4, 0, PLAYING);
+
+        cache.track(4, BwsClipCache.NO_POSITION);
+
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(4, 0));
+        // the other slots are still known
+        assertEquals(EMPTY, cache.stateAt(3, 0));
+    }
+
+    @Test
+    public void followingTheScenesWaitsForTheBanks() {
+        trackAllSlots();
+        host.report(0, 1, STOPPED);
+
+        cache.followScenes(8);
+        assertEquals(Integer.valueOf(8), host.values.get("bank0.sceneBank.scrollPosition"));
+        assertEquals(Integer.valueOf(8), host.values.get("bank5.sceneBank.scrollPosition"));
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(0, 1));
+
+        scheduler.advance(SETTLE_MS);
+        assertEquals(STOPPED, cache.stateAt(0, 1));
+    }
+
+    @Test
+    public void resubscribingWaitsForTheBanks() {
+        trackAllSlots();
+        host.report(5, 7, REC_QUEUED);
+
+        subscriptions.setActiveFeatures(0);
+        subscriptions.setActiveFeatures(SubscriptionManager.ALL);
+        // the resync runs once Bitwig had time to send the values
+        scheduler.advance(100);
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(5, 7));
+
+        scheduler.advance(SETTLE_MS);
+        assertEquals(REC_QUEUED, cache.stateAt(5, 7));
+    }
+
+    @Test
+    public void renamedTrackKeepsItsStates() {
+        trackAllSlots();
+        host.report(3, 2, PLAYING);
+        host.values.remove("bank3.scrollPosition");
+
+        // reparsing the renamed track releases the slot and assigns it again
+        cache.track(3, BwsClipCache.NO_POSITION);
+        cache.track(3, 13);
+
+        assertNull(host.values.get("bank3.scrollPosition"));
+        assertEquals(PLAYING, cache.stateAt(3, 2));
+    }
+
+    @Test
+    public void slotMovedToAnotherTrackWaitsForTheBank() {
+        trackAllSlots();
+        host.report(3, 2, PLAYING);
+
+        cache.track(3, BwsClipCache.NO_POSITION);
+        cache.track(3, 20);
+
+        assertEquals(Integer.valueOf(20), host.values.get("bank3.scrollPosition"));
+        assertEquals(BwsClipCache.UNKNOWN, cache.stateAt(3, 2));
+        scheduler.advance(SETTLE_MS);
+        assertEquals(PLAYING, cache.stateAt(3, 2));
+    }
+}
@@ -0,0 +1,250 @@
+package de.davidrival.softstep.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.davidrival.softstep.api.ClipSlotStateMachine.*;
+import static org.junit.Assert.*;
+
+/**
+ * Replays the callback transcripts recorded from Bitwig (src/test/resources/CallbackStateMachine),
+ * every transcript on its own slot, and checks where the slots settle.
+ * <p>
+ * The transcripts were recorded with the old per-kind observers, a line "! playingQue ! true" is what
+ * the playback state observer reports as playing + queued, "! playing ! false" or "! playingQue ! false"
+ * as stopped, "! content ! true" is a content callback.
+ */
+public class ClipSlotStateMachineTest {
+
+    private static final String TRANSCRIPTS = "/CallbackStateMachine";
+
+    /** State of the slot before the transcript, by the start of its title */
+    private static final Map<String, Integer> INITIAL_STATES = new LinkedHashMap<>();
+    /** State the slot has to settle in, by title */
+    private static final Map<String, Integer> FINAL_STATES = new LinkedHashMap<>();
+
+    static {
+        INITIAL_STATES.put("empty slot", EMPTY);
+        INITIAL_STATES.put("recording clip", RECORDING);
+        INITIAL_STATES.put("stopped clip", STOPPED);
+        INITIAL_STATES.put("play clip", PLAYING);
+
+        FINAL_STATES.put("empty slot -> click rec", RECORDING);
+        FINAL_STATES.put("recording clip -> click to play", PLAYING);
+        FINAL_STATES.put("recording clip -> delete clip", EMPTY);
+        FINAL_STATES.put("recording clip -> click to stop clip", STOPPED);
+        FINAL_STATES.put("stopped clip -> click to play", PLAYING);
+        FINAL_STATES.put("play clip -> click to stop clip", STOPPED);
+    }
+
+    private static class Transcript {
+        final String title;
+        final List<Integer> events = new ArrayList<>();
+
+        Transcript(String title) {
+            this.title = title;
+        }
+
+        int initialState() {
+            for (Map.Entry<String, Integer> entry : INITIAL_STATES.entrySet()) {
+                if (title.startsWith(entry.getKey())) return entry.getValue();
+            }
+            throw new AssertionError("No initial state for transcript: " + title);
+        }
+
+        int finalState() {
+            Integer state = FINAL_STATES.get(title);
+            assertNotNull("No final state for transcript: " + title, state);
+            return state;
+        }
+    }
+
+    private List<Transcript> transcripts;
+
+    @Before
+    public void loadTranscripts() throws IOException {
+        transcripts = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream(TRANSCRIPTS)) {
+            assertNotNull("Missing test resource " + TRANSCRIPTS, in);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Transcript current = null;
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (line.startsWith("###")) {
+                    current = new Transcript(line.substring(3).trim());
+                    transcripts.add(current);
+                } else if (line.startsWith("!") && current != null) {
+                    current.events.add(eventOf(line));
+                }
+            }
+        }
+        assertEquals(FINAL_STATES.size(), transcripts.size());
+    }
+
+    /**
+     * @param line e.g. "! recordingQue ! true"
+     */
+    private static int eventOf(String line) {
+        String[] parts = line.split("!");
+        String kind = parts[1].trim();
+        boolean on = Boolean.parseBoolean(parts[2].trim());
+
+        if (kind.equals("content")) return contentEvent(on);
+
+        boolean queued = kind.endsWith("Que");
+        String state = queued ? kind.substring(0, kind.length() - 3) : kind;
+        if (!on) return playbackEvent(0, false);
+        switch (state) {
+            case "playing":
+                return playbackEvent(1, queued);
+            case "recording":
+                return playbackEvent(2, queued);
+            default:
+                throw new AssertionError("Unknown callback: " + line);
+        }
+    }
+
+    @Test
+    public void transcriptsSettleInTheirFinalStates() {
+        ClipSlotStateMachine machine = new ClipSlotStateMachine(transcripts.size());
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            machine.seed(slot, transcripts.get(slot).initialState());
+        }
+        machine.settle((slot, state) -> { });
+        assertTrue(machine.isSettled());
+
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            for (int event : transcripts.get(slot).events) {
+                machine.onEvent(slot, event);
+            }
+        }
+
+        assertFalse(machine.isSettled());
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            Transcript transcript = transcripts.get(slot);
+            assertEquals(transcript.title, transcript.finalState(), machine.getState(slot));
+            assertTrue(transcript.title, machine.isDirty(slot));
+        }
+
+        int[] emitted = new int[transcripts.size()];
+        int[] emitCount = new int[transcripts.size()];
+        int count = machine.settle((slot, state) -> {
+            emitted[slot] = state;
+            emitCount[slot]++;
+        });
+
+        // every transcript ends in another state than it started in, each slot is told once
+        assertEquals(transcripts.size(), count);
+        assertTrue(machine.isSettled());
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            Transcript transcript = transcripts.get(slot);
+            assertEquals(transcript.title, 1, emitCount[slot]);
+            assertEquals(transcript.title, transcript.finalState(), emitted[slot]);
+            assertFalse(transcript.title, machine.isDirty(slot));
+        }
+    }
+
+    @Test
+    public void untouchedSlotsStayClean() {
+        ClipSlotStateMachine machine = new ClipSlotStateMachine(transcripts.size() + 2);
+        machine.settle((slot, state) -> { });
+
+        Transcript transcript = transcripts.get(0);
+        for (int event : transcript.events) {
+            machine.onEvent(1, event);
+        }
+
+        assertFalse(machine.isDirty(0));
+        assertTrue(machine.isDirty(1));
+        assertFalse(machine.isDirty(2));
+        assertEquals(EMPTY, machine.getState(0));
+        assertEquals(EMPTY, machine.getState(2));
+    }
+
+    @Test
+    public void burstWhichEndsWhereItStartedIsNotEmitted() {
+        ClipSlotStateMachine machine = new ClipSlotStateMachine(1);
+        machine.seed(0, PLAYING);
+        machine.settle((slot, state) -> { });
+
+        machine.onEvent(0, playbackEvent(0, true));
+        machine.onEvent(0, playbackEvent(1, false));
+
+        assertTrue(machine.isDirty(0));
+        assertEquals(0, machine.settle((slot, state) -> fail("slot " + slot + " didn't change")));
+        assertFalse(machine.isDirty(0));
+    }
+
+    @Test
+    public void transcriptsThroughTheHostStateMirror() {
+        int[] flushRequests = new int[1];
+        HostStateMirror mirror = new HostStateMirror(transcripts.size(), () -> flushRequests[0]++);
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            mirror.seedSlot(slot, transcripts.get(slot).initialState());
+        }
+        RecordingRenderer renderer = new RecordingRenderer(transcripts.size());
+        mirror.render(renderer);
+        assertFalse(mirror.hasChanges());
+
+        renderer.reset();
+        flushRequests[0] = 0;
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            for (int event : transcripts.get(slot).events) {
+                mirror.onSlotEvent(slot, event);
+            }
+        }
+
+        assertTrue(mirror.hasChanges());
+        assertTrue(flushRequests[0] > 0);
+        mirror.render(renderer);
+        assertFalse(mirror.hasChanges());
+        for (int slot = 0; slot < transcripts.size(); slot++) {
+            Transcript transcript = transcripts.get(slot);
+            assertEquals(transcript.title, transcript.finalState(), mirror.getSlotState(slot));
+            assertEquals(transcript.title, 1, renderer.renders[slot]);
+            assertEquals(transcript.title, transcript.finalState(), renderer.states[slot]);
+        }
+    }
+
+    private static class RecordingRenderer implements HostStateMirror.Renderer {
+        final int[] states;
+        final int[] renders;
+
+        RecordingRenderer(int slots) {
+            states = new int[slots];
+            renders = new int[slots];
+        }
+
+        void reset() {
+            java.util.Arrays.fill(renders, 0);
+        }
+
+        @Override
+        public void renderSlot(int slot, int state) {
+            states[slot] = state;
+            renders[slot]++;
+        }
+
+        @Override
+        public void renderMute(boolean muted) {
+        }
+
+        @Override
+        public void renderArm(boolean armed) {
+        }
+
+        @Override
+        public void renderBwsSelection(int bwsSlot, String trackName) {
+        }
+    }
+}
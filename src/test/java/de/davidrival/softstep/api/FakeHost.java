@@ -0,0 +1,119 @@
+package de.davidrival.softstep.api;
+
+import com.bitwig.extension.callback.ClipLauncherSlotBankPlaybackStateChangedCallback;
+import com.bitwig.extension.callback.IndexedBooleanValueChangedCallback;
+import com.bitwig.extension.callback.IntegerValueChangedCallback;
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.bitwig.extension.controller.api.Track;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.davidrival.softstep.api.ClipSlotStateMachine.*;
+
+/**
+ * Host whose objects only record what is set and which observers are added, the tests send
+ * the callbacks Bitwig would send. Objects are named by their path, e.g. "bank2.sceneBank.scrollPosition".
+ */
+class FakeHost {
+
+    /** Slot observers in the order the slot banks were asked for */
+    final List<IndexedBooleanValueChangedCallback> contentObservers = new ArrayList<>();
+    final List<ClipLauncherSlotBankPlaybackStateChangedCallback> playbackObservers = new ArrayList<>();
+    /** Last value set per object */
+    final Map<String, Integer> values = new HashMap<>();
+    private final Map<String, IntegerValueChangedCallback> integerObservers = new HashMap<>();
+    int createdBanks = 0;
+
+    final ControllerHost host = fake(ControllerHost.class, "host");
+
+    /**
+     * Sends the callbacks which bring an empty cell into the state.
+     *
+     * @param slotBank index of the slot bank in the order they were asked for
+     */
+    void report(int slotBank, int scene, int state) {
+        if (state == EMPTY) return;
+        contentObservers.get(slotBank).valueChanged(scene, true);
+        switch (state) {
+            case STOP_QUEUED:
+                playbackObservers.get(slotBank).playbackStateChanged(scene, 0, true);
+                break;
+            case PLAYING:
+                playbackObservers.get(slotBank).playbackStateChanged(scene, 1, false);
+                break;
+            case PLAY_QUEUED:
+                playbackObservers.get(slotBank).playbackStateChanged(scene, 1, true);
+                break;
+            case RECORDING:
+                playbackObservers.get(slotBank).playbackStateChanged(scene, 2, false);
+                break;
+            case REC_QUEUED:
+                playbackObservers.get(slotBank).playbackStateChanged(scene, 2, true);
+                break;
+        }
+    }
+
+    /**
+     * Bitwig reports the value, e.g. the scroll position a bank ended up at.
+     */
+    void reportValue(String path, int value) {
+        values.put(path, value);
+        IntegerValueChangedCallback observer = integerObservers.get(path);
+        if (observer != null) observer.valueChanged(value);
+    }
+
+    /**
+     * @return an object which answers every call with another fake object or a default value
+     */
+    private <T> T fake(Class<T> type, String path) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "addHasContentObserver":
+                    contentObservers.add((IndexedBooleanValueChangedCallback) args[0]);
+                    return null;
+                case "addPlaybackStateObserver":
+                    playbackObservers.add((ClipLauncherSlotBankPlaybackStateChangedCallback) args[0]);
+                    return null;
+                case "addValueObserver":
+                    if (args[0] instanceof IntegerValueChangedCallback) {
+                        integerObservers.put(path, (IntegerValueChangedCallback) args[0]);
+                    }
+                    return null;
+                case "set":
+                    values.put(path, ((Number) args[0]).intValue());
+                    return null;
+                case "get":
+                case "getAsInt":
+                    if (method.getReturnType() != int.class) break;
+                    return values.getOrDefault(path, 0);
+                case "createMainTrackBank":
+                case "createTrackBank":
+                    return fake(method.getReturnType(), "bank" + createdBanks++);
+                case "getItemAt":
+                    return fake(Track.class, path + ".item" + args[0]);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return path;
+            }
+            return defaultValue(method.getReturnType(), path + "." + name);
+        }));
+    }
+
+    private Object defaultValue(Class<?> type, String path) {
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type.isInterface()) return fake(type, path);
+        return null;
+    }
+}
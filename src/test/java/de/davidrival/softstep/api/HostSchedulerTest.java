@@ -0,0 +1,93 @@
+package de.davidrival.softstep.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the scheduler on a manual clock, the host wake ups are driven by {@link ManualHostScheduler#advance}.
+ */
+public class HostSchedulerTest {
+
+    private ManualHostScheduler scheduler;
+    private List<String> runs;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualHostScheduler();
+        runs = new ArrayList<>();
+    }
+
+    @Test
+    public void tasksRunAtTheirDeadlines() {
+        scheduler.schedule(() -> runs.add("b@" + scheduler.getTime()), 20);
+        scheduler.schedule(() -> runs.add("a@" + scheduler.getTime()), 10);
+
+        scheduler.advance(9);
+        assertTrue(runs.isEmpty());
+        scheduler.advance(20);
+        assertEquals(List.of("a@10", "b@20"), runs);
+    }
+
+    @Test
+    public void failingTaskDoesNotStopTheOthers() {
+        scheduler.schedule(() -> { throw new IllegalStateException("boom"); }, 10);
+        scheduler.schedule(() -> runs.add("same deadline"), 10);
+        scheduler.schedule(() -> runs.add("later"), 30);
+
+        scheduler.advance(10);
+        assertEquals(List.of("same deadline"), runs);
+        assertEquals(1, scheduler.getErrors().size());
+        assertTrue(scheduler.getErrors().get(0).contains("boom"));
+
+        // the scheduler armed the host again for the remaining task
+        scheduler.advance(20);
+        assertEquals(List.of("same deadline", "later"), runs);
+    }
+
+    @Test
+    public void failingRepeatingTaskKeepsRepeating() {
+        int[] count = new int[1];
+        scheduler.scheduleRepeating(() -> {
+            count[0]++;
+            throw new IllegalStateException("run " + count[0]);
+        }, 10, 10, HostScheduler.FOREVER);
+
+        scheduler.advance(45);
+        assertEquals(4, count[0]);
+        assertEquals(4, scheduler.getErrors().size());
+    }
+
+    @Test
+    public void repetitionsAreCounted() {
+        scheduler.scheduleRepeating(() -> runs.add("run@" + scheduler.getTime()), 5, 10, 3);
+
+        scheduler.advance(100);
+        assertEquals(List.of("run@5", "run@15", "run@25"), runs);
+    }
+
+    @Test
+    public void coalescedTaskRunsOnlyTheLatest() {
+        Object key = new Object();
+        scheduler.scheduleCoalesced(key, () -> runs.add("first"), 10);
+        scheduler.advance(5);
+        scheduler.scheduleCoalesced(key, () -> runs.add("second"), 10);
+
+        scheduler.advance(20);
+        assertEquals(List.of("second"), runs);
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() {
+        HostScheduler.Task task = scheduler.schedule(() -> runs.add("cancelled"), 10);
+        task.cancel();
+
+        scheduler.advance(20);
+        assertTrue(runs.isEmpty());
+        assertFalse(task.isActive());
+    }
+}
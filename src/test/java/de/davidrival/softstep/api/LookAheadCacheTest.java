@@ -0,0 +1,129 @@
+package de.davidrival.softstep.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static de.davidrival.softstep.api.ClipSlotStateMachine.*;
+import static org.junit.Assert.*;
+
+/**
+ * Scrolls the hidden bank of the cache over a {@link FakeHost} and checks the states stay with their
+ * project positions, the time is the clock of a {@link ManualHostScheduler}.
+ */
+public class LookAheadCacheTest {
+
+    private static final int SETTLE_MS = 250;
+    /** Grid of 2 tracks with 4 scenes, the hidden bank has 4 tracks and 12 scenes */
+    private static final int SCENES = 4;
+
+    private FakeHost host;
+    private ManualHostScheduler scheduler;
+    private SubscriptionManager subscriptions;
+    private LookAheadCache cache;
+
+    @Before
+    public void setUp() {
+        host = new FakeHost();
+        scheduler = new ManualHostScheduler();
+        subscriptions = new SubscriptionManager(scheduler);
+        cache = new LookAheadCache(host.host, scheduler, new ClipGrid(2, SCENES), subscriptions);
+    }
+
+    @Test
+    public void hiddenBankSpansTheMargins() {
+        assertEquals(4, host.contentObservers.size());
+
+        cache.follow(3, 8);
+        assertEquals(Integer.valueOf(3 - LookAheadCache.TRACK_MARGIN), host.values.get("bank0.scrollPosition"));
+        assertEquals(Integer.valueOf(8 - SCENES * LookAheadCache.SCENE_PAGES)
+                , host.values.get("bank0.sceneBank.scrollPosition"));
+    }
+
+    @Test
+    public void outsideTheBankIsUnknown() {
+        assertEquals(EMPTY, cache.stateAt(0, 0));
+        assertEquals(EMPTY, cache.stateAt(3, 11));
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(4, 0));
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(0, 12));
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(-1, 0));
+    }
+
+    @Test
+    public void statesMoveAlongWithTheBank() {
+        host.report(1, 5, PLAYING);
+        host.report(3, 6, RECORDING);
+
+        cache.follow(2, 8);
+        // the bank starts at track 1 and scene 4 now
+        assertEquals(PLAYING, cache.stateAt(1, 5));
+        assertEquals(RECORDING, cache.stateAt(3, 6));
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(0, 5));
+
+        // the callbacks are for bank positions
+        host.playbackObservers.get(0).playbackStateChanged(1, 0, false);
+        assertEquals(STOPPED, cache.stateAt(1, 5));
+    }
+
+    @Test
+    public void scrolledInPositionsWaitForTheBank() {
+        cache.follow(2, 8);
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(4, 5));
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(1, 15));
+        // Bitwig reports a position which differs
+        host.report(3, 11, PLAY_QUEUED);
+        assertEquals(PLAY_QUEUED, cache.stateAt(4, 15));
+
+        scheduler.advance(SETTLE_MS - 1);
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(4, 5));
+
+        scheduler.advance(1);
+        assertEquals(EMPTY, cache.stateAt(4, 5));
+        assertEquals(EMPTY, cache.stateAt(1, 15));
+    }
+
+    @Test
+    public void reportedScrollPositionOfTheRequestDoesNothing() {
+        host.report(1, 5, PLAYING);
+        cache.follow(2, 8);
+        scheduler.advance(SETTLE_MS);
+
+        host.reportValue("bank0.scrollPosition", 1);
+        host.reportValue("bank0.sceneBank.scrollPosition", 4);
+
+        assertEquals(PLAYING, cache.stateAt(1, 5));
+        assertEquals(EMPTY, cache.stateAt(4, 5));
+    }
+
+    @Test
+    public void bankStoppedShortAtTheEndOfTheProject() {
+        host.report(2, 1, PLAYING);
+
+        // asks for track 4, the project only has 5 tracks
+        cache.follow(5, 0);
+        host.reportValue("bank0.scrollPosition", 1);
+
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(5, 1));
+        // Bitwig reports the positions which differ from what it sent for the bank position before
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(2, 1));
+        host.report(1, 1, PLAYING);
+        host.report(3, 0, RECORDING);
+        assertEquals(PLAYING, cache.stateAt(2, 1));
+        assertEquals(RECORDING, cache.stateAt(4, 0));
+
+        scheduler.advance(SETTLE_MS);
+        assertEquals(EMPTY, cache.stateAt(1, 1));
+    }
+
+    @Test
+    public void resubscribingWaitsForTheBank() {
+        host.report(0, 0, PLAYING);
+
+        subscriptions.setActiveFeatures(0);
+        subscriptions.setActiveFeatures(SubscriptionManager.ALL);
+        scheduler.advance(100);
+        assertEquals(LookAheadCache.UNKNOWN, cache.stateAt(0, 0));
+
+        scheduler.advance(SETTLE_MS);
+        assertEquals(PLAYING, cache.stateAt(0, 0));
+    }
+}
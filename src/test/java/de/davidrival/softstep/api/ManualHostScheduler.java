@@ -0,0 +1,90 @@
+package de.davidrival.softstep.api;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HostScheduler} on a clock the test moves, with a host which only keeps the scheduled wake ups
+ * and the error lines.
+ */
+public class ManualHostScheduler extends HostScheduler {
+
+    private static class WakeUp {
+        final Runnable callback;
+        final long due;
+
+        WakeUp(Runnable callback, long due) {
+            this.callback = callback;
+            this.due = due;
+        }
+    }
+
+    private final List<WakeUp> wakeUps;
+    private final List<String> errors;
+    /** Shared with the fake host, which needs the time before the scheduler exists */
+    private final long[] clock;
+
+    public ManualHostScheduler() {
+        this(new ArrayList<>(), new ArrayList<>(), new long[1]);
+    }
+
+    private ManualHostScheduler(List<WakeUp> wakeUps, List<String> errors, long[] clock) {
+        super(fakeHost(wakeUps, errors, clock));
+        this.wakeUps = wakeUps;
+        this.errors = errors;
+        this.clock = clock;
+    }
+
+    private static ControllerHost fakeHost(List<WakeUp> wakeUps, List<String> errors, long[] clock) {
+        return (ControllerHost) Proxy.newProxyInstance(ControllerHost.class.getClassLoader()
+                , new Class<?>[]{ControllerHost.class}
+                , (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "scheduleTask":
+                            wakeUps.add(new WakeUp((Runnable) args[0], clock[0] + ((Number) args[1]).longValue()));
+                            return null;
+                        case "errorln":
+                            errors.add((String) args[0]);
+                            return null;
+                        case "println":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Override
+    public long now() {
+        return clock[0];
+    }
+
+    /**
+     * Moves the clock and runs every host wake up which is due, in the order the host would.
+     */
+    public void advance(long ms) {
+        long target = clock[0] + ms;
+        while (true) {
+            WakeUp next = null;
+            for (WakeUp wakeUp : wakeUps) {
+                if (wakeUp.due <= target && (next == null || wakeUp.due < next.due)) next = wakeUp;
+            }
+            if (next == null) break;
+            wakeUps.remove(next);
+            clock[0] = Math.max(clock[0], next.due);
+            next.callback.run();
+        }
+        clock[0] = target;
+    }
+
+    public long getTime() {
+        return clock[0];
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
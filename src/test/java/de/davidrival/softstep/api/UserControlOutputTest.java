@@ -0,0 +1,137 @@
+package de.davidrival.softstep.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserControlOutputTest {
+
+    private static final int DEADBAND = 4;
+
+    private List<int[]> sent;
+    private int flushRequests;
+    private UserControlOutput output;
+
+    @Before
+    public void setUp() {
+        sent = new ArrayList<>();
+        flushRequests = 0;
+        output = new UserControlOutput(20, (index, value) -> sent.add(new int[]{index, value}), () -> flushRequests++);
+    }
+
+    private void assertSent(int... indexValuePairs) {
+        assertEquals("sent values", indexValuePairs.length / 2, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            assertArrayEquals("value " + i, new int[]{indexValuePairs[2 * i], indexValuePairs[2 * i + 1]}, sent.get(i));
+        }
+        sent.clear();
+    }
+
+    @Test
+    public void latestValueBetweenFlushesIsSentOnce() {
+        assertTrue(output.offer(3, 40, 0, 0, 127));
+        assertTrue(output.offer(3, 50, 0, 0, 127));
+        assertTrue(output.offer(4, 60, 0, 0, 127));
+        assertEquals(2, flushRequests);
+
+        output.flush();
+        assertSent(3, 50, 4, 60);
+
+        assertFalse(output.offer(3, 50, 0, 0, 127));
+        output.flush();
+        assertSent();
+    }
+
+    @Test
+    public void valuesWithinTheDeadbandAreDropped() {
+        output.offer(0, 60, DEADBAND, 0, 127);
+        output.flush();
+        sent.clear();
+
+        assertFalse(output.offer(0, 63, DEADBAND, 0, 127));
+        assertTrue(output.offer(0, 64, DEADBAND, 0, 127));
+        output.flush();
+        assertSent(0, 64);
+    }
+
+    @Test
+    public void pendingValueWhichMovedBackIsNotSent() {
+        output.offer(0, 60, DEADBAND, 0, 127);
+        output.flush();
+        sent.clear();
+
+        output.offer(0, 70, DEADBAND, 0, 127);
+        output.offer(0, 61, DEADBAND, 0, 127);
+        output.flush();
+        assertSent();
+    }
+
+    @Test
+    public void rangeStartAboveZeroPassesTheDeadband() {
+        // a pad which rests at 20 and goes up to 100
+        output.offer(0, 22, DEADBAND, 20, 100);
+        output.flush();
+        sent.clear();
+
+        assertTrue(output.offer(0, 20, DEADBAND, 20, 100));
+        output.flush();
+        assertSent(0, 20);
+
+        // 0 isn't an end of this range, it is dropped like any other value
+        output.offer(0, 2, DEADBAND, 20, 100);
+        output.flush();
+        sent.clear();
+        assertFalse(output.offer(0, 0, DEADBAND, 20, 100));
+    }
+
+    @Test
+    public void rangeEndBelowMaximumPassesTheDeadband() {
+        output.offer(0, 98, DEADBAND, 20, 100);
+        output.flush();
+        sent.clear();
+
+        assertTrue(output.offer(0, 100, DEADBAND, 20, 100));
+        output.flush();
+        assertSent(0, 100);
+    }
+
+    @Test
+    public void invertedRangeRestsAtItsUpperEnd() {
+        // inverted pad: released it sends 100, fully pressed 20
+        output.offer(0, 97, DEADBAND, 100, 20);
+        output.flush();
+        sent.clear();
+
+        assertTrue(output.offer(0, 100, DEADBAND, 100, 20));
+        output.flush();
+        assertSent(0, 100);
+
+        output.offer(0, 23, DEADBAND, 100, 20);
+        output.flush();
+        sent.clear();
+        assertTrue(output.offer(0, 20, DEADBAND, 100, 20));
+        output.flush();
+        assertSent(0, 20);
+    }
+
+    @Test
+    public void rangeEndWhichWasSentIsStillDropped() {
+        output.offer(0, 20, DEADBAND, 20, 100);
+        output.flush();
+        sent.clear();
+
+        assertFalse(output.offer(0, 20, DEADBAND, 20, 100));
+    }
+
+    @Test
+    public void valuesSentPastTheStageAreRecorded() {
+        output.recordSent(2, 90);
+
+        assertFalse(output.offer(2, 91, DEADBAND, 0, 127));
+        assertTrue(output.offer(2, 127, DEADBAND, 0, 127));
+    }
+}
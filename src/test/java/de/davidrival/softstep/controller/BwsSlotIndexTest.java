@@ -0,0 +1,192 @@
+package de.davidrival.softstep.controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.davidrival.softstep.controller.BwsSlotIndex.NO_CHILD;
+import static de.davidrival.softstep.controller.BwsSlotIndex.NO_POSITION;
+import static org.junit.Assert.*;
+
+/**
+ * Drives the index the way the discovery service does for the windows and scans of the {@link WindowedBwsScanner}.
+ */
+public class BwsSlotIndexTest {
+
+    private List<String> changes;
+    private BwsSlotIndex index;
+
+    @Before
+    public void setUp() {
+        changes = new ArrayList<>();
+        index = new BwsSlotIndex(4, (bwsSlot, position, child, trackName) ->
+                changes.add(bwsSlot + "@" + position + (child != NO_CHILD ? "/" + child : "")));
+    }
+
+    private static String[] window(int size, String... names) {
+        String[] window = new String[size];
+        System.arraycopy(names, 0, window, 0, names.length);
+        return window;
+    }
+
+    @Test
+    public void reparseMapsBothWays() {
+        index.reparse(2, "Bass <BWS:5>", true);
+
+        assertEquals(2, index.getPosition(5));
+        assertEquals(NO_CHILD, index.getChild(5));
+        assertEquals("Bass <BWS:5>", index.getName(5));
+        assertEquals(5, index.slotAt(2));
+        assertEquals(1, index.getCount());
+
+        index.reparse(2, "Bass", true);
+        assertEquals(NO_POSITION, index.getPosition(5));
+        assertEquals(BwsTagScanner.NO_SLOT, index.slotAt(2));
+        assertEquals(0, index.getCount());
+        assertEquals(List.of("5@2", "5@-1"), changes);
+    }
+
+    @Test
+    public void lastTrackWithATagWins() {
+        index.reparse(1, "A <BWS:3>", true);
+        index.reparse(7, "B <BWS:3>", true);
+
+        assertEquals(7, index.getPosition(3));
+        assertEquals(BwsTagScanner.NO_SLOT, index.slotAt(1));
+        assertEquals(3, index.slotAt(7));
+        assertEquals(1, index.getCount());
+    }
+
+    @Test
+    public void positionsGrowWithTheProject() {
+        index.reparse(300, "Far away <BWS:31>", true);
+
+        assertEquals(300, index.getPosition(31));
+        assertEquals(31, index.slotAt(300));
+        assertEquals(BwsTagScanner.NO_SLOT, index.slotAt(299));
+    }
+
+    @Test
+    public void scanFinishedReleasesTracksPastTheTrackCount() {
+        index.onWindowChanged(0, window(16, "Drums <BWS:0>", null, "Keys <BWS:1>"));
+        index.onWindowChanged(16, window(16, null, "Vox <BWS:2>", null, "Pad <BWS:3>"));
+        assertEquals(4, index.getCount());
+
+        // the project shrank to 18 tracks, the window behind the end isn't reported anymore
+        index.releaseFrom(18);
+
+        assertEquals(0, index.getPosition(0));
+        assertEquals(2, index.getPosition(1));
+        assertEquals(17, index.getPosition(2));
+        assertEquals(NO_POSITION, index.getPosition(3));
+        assertEquals(BwsTagScanner.NO_SLOT, index.slotAt(19));
+        assertEquals(3, index.getCount());
+    }
+
+    @Test
+    public void scanFinishedOnAnEmptyProjectReleasesEverything() {
+        index.onWindowChanged(0, window(16, "Drums <BWS:0>", "Keys <BWS:1>"));
+        index.onGroupChildrenChanged(1, 0, window(16, "Child <BWS:2>"));
+
+        index.releaseFrom(0);
+
+        assertEquals(0, index.getCount());
+        for (int bwsSlot = 0; bwsSlot < BwsSlotIndex.SLOT_COUNT; bwsSlot++) {
+            assertEquals(NO_POSITION, index.getPosition(bwsSlot));
+        }
+    }
+
+    @Test
+    public void windowWithoutTracksReleasesItsTags() {
+        index.onWindowChanged(0, window(16, "Drums <BWS:0>", "Keys <BWS:1>"));
+
+        index.onWindowChanged(0, window(16, "Drums <BWS:0>"));
+
+        assertEquals(0, index.getPosition(0));
+        assertEquals(NO_POSITION, index.getPosition(1));
+        assertEquals(1, index.getCount());
+    }
+
+    @Test
+    public void childrenOfCollapsedGroupsPointToTheirGroup() {
+        index.onWindowChanged(0, window(16, "Drums", "Group"));
+        index.onGroupChildrenChanged(1, 0, window(16, "Kick", "Snare <BWS:4>"));
+        index.onGroupChildrenChanged(1, 16, window(16, "Hats <BWS:6>"));
+
+        assertEquals(1, index.getPosition(4));
+        assertEquals(1, index.getChild(4));
+        assertEquals(1, index.getPosition(6));
+        assertEquals(16, index.getChild(6));
+        // the group itself has no tag
+        assertEquals(BwsTagScanner.NO_SLOT, index.slotAt(1));
+        assertEquals(List.of("4@1/1", "6@1/16"), changes);
+    }
+
+    @Test
+    public void changedWindowReleasesTheChildrenOfItsCollapsedGroups() {
+        index.onWindowChanged(0, window(16, "Drums", "Group"));
+        index.onGroupChildrenChanged(1, 0, window(16, "Kick <BWS:4>", "Snare <BWS:5>"));
+        index.onWindowChanged(16, window(16, "Other group"));
+        index.onGroupChildrenChanged(16, 0, window(16, "Bass <BWS:7>"));
+        changes.clear();
+
+        // the group was expanded, the window reports its children as tracks of the flat list
+        index.onWindowChanged(0, window(16, "Drums", "Group", "Kick <BWS:4>", "Snare"));
+
+        assertEquals(2, index.getPosition(4));
+        assertEquals(NO_CHILD, index.getChild(4));
+        assertEquals(NO_POSITION, index.getPosition(5));
+        // children of groups in other windows are kept
+        assertEquals(16, index.getPosition(7));
+        assertEquals(0, index.getChild(7));
+        assertEquals(2, index.getCount());
+        assertEquals(List.of("4@-1", "5@-1", "4@2"), changes);
+    }
+
+    @Test
+    public void collapsedGroupReportsItsChildrenAgain() {
+        index.onWindowChanged(0, window(16, "Group", "Kick <BWS:4>"));
+        assertEquals(1, index.getPosition(4));
+
+        // collapsing moves the child out of the flat list and into the group
+        index.onWindowChanged(0, window(16, "Group"));
+        index.onGroupChildrenChanged(0, 0, window(16, "Kick <BWS:4>"));
+
+        assertEquals(0, index.getPosition(4));
+        assertEquals(0, index.getChild(4));
+        assertEquals(BwsTagScanner.NO_SLOT, index.slotAt(1));
+        assertEquals(1, index.getCount());
+    }
+
+    @Test
+    public void childTagMovedToAFlatTrack() {
+        index.onGroupChildrenChanged(3, 2, window(16, "Kick <BWS:4>"));
+
+        index.reparse(9, "New kick <BWS:4>", true);
+
+        assertEquals(9, index.getPosition(4));
+        assertEquals(NO_CHILD, index.getChild(4));
+        assertEquals(4, index.slotAt(9));
+        assertEquals(1, index.getCount());
+    }
+
+    @Test
+    public void differsOnlyWhereReparsingChangesTheIndex() {
+        index.reparse(0, "Drums <BWS:0>", true);
+        index.reparse(1, "Keys", true);
+
+        assertFalse(index.differs(0, "Drums <BWS:0>", true));
+        assertFalse(index.differs(1, "Keys", true));
+        assertFalse(index.differs(1, "Piano", true));
+        assertFalse(index.differs(2, null, false));
+
+        assertTrue("renamed tagged track", index.differs(0, "Beats <BWS:0>", true));
+        assertTrue("retagged track", index.differs(0, "Drums <BWS:1>", true));
+        assertTrue("removed tag", index.differs(0, "Drums", true));
+        assertTrue("removed track", index.differs(0, "Drums <BWS:0>", false));
+        assertTrue("new tag", index.differs(1, "Keys <BWS:2>", true));
+        assertTrue("new track", index.differs(5, "Vox <BWS:3>", true));
+    }
+}
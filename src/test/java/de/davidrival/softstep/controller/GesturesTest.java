@@ -0,0 +1,171 @@
+package de.davidrival.softstep.controller;
+
+import de.davidrival.softstep.api.ManualHostScheduler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Presses a pad with corner CCs and moves the clock of a {@link ManualHostScheduler},
+ * the time based gestures have to fire exactly at their deadlines.
+ */
+public class GesturesTest {
+
+    private ManualHostScheduler scheduler;
+    private Softstep1Pad pad;
+    /** Time of every deadline gesture the pad reported */
+    private List<Long> deadlineGestures;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualHostScheduler();
+        // the release times have to be after 0
+        scheduler.advance(10_000);
+        pad = new Softstep1Pad(0, new int[]{44, 45, 46, 47}, new PadStateStore(), scheduler, null);
+        deadlineGestures = new ArrayList<>();
+        pad.setDeadlineGestureListener(p -> deadlineGestures.add(scheduler.getTime()));
+    }
+
+    private void press() {
+        pad.update(0, 100);
+    }
+
+    private void release() {
+        pad.update(0, 0);
+    }
+
+    @Test
+    public void pressAndRelease() {
+        press();
+        assertTrue(pad.gestures().isFootOn());
+        assertFalse(pad.gestures().isFootOff());
+        assertTrue(pad.isUsed());
+
+        pad.notifyControlConsumed();
+        release();
+        assertFalse(pad.gestures().isFootOn());
+        assertTrue(pad.gestures().isFootOff());
+    }
+
+    @Test
+    public void longPressFiresAtItsDeadline() {
+        long pressedAt = scheduler.getTime();
+        press();
+        pad.notifyControlConsumed();
+
+        scheduler.advance(Gestures.LONG_PRESS_DELAY_MS - 1);
+        assertTrue(deadlineGestures.isEmpty());
+        assertFalse(pad.gestures().isLongPress());
+
+        scheduler.advance(1);
+        assertEquals(List.of(pressedAt + Gestures.LONG_PRESS_DELAY_MS), deadlineGestures);
+        assertTrue(pad.gestures().isLongPress());
+        // the edge of the press isn't delivered again with the deadline
+        assertFalse(pad.gestures().isFootOn());
+        assertTrue(pad.isUsed());
+    }
+
+    @Test
+    public void longPressDelayOfThePadConfig() {
+        PadConfigurationManager.PadConfig config = new PadConfigurationManager.PadConfig();
+        config.longPressDelayMs = 400;
+        pad.gestures().setPadConfig(config);
+
+        press();
+        scheduler.advance(399);
+        assertTrue(deadlineGestures.isEmpty());
+        scheduler.advance(1);
+        assertEquals(1, deadlineGestures.size());
+    }
+
+    @Test
+    public void releaseCancelsTheLongPress() {
+        press();
+        scheduler.advance(Gestures.LONG_PRESS_DELAY_MS - 1);
+        release();
+
+        scheduler.advance(Gestures.LONG_PRESS_DELAY_MS * 2);
+        assertTrue(deadlineGestures.isEmpty());
+        assertFalse(pad.gestures().isLongPress());
+    }
+
+    @Test
+    public void holdRepeatFiresAfterTheLongPress() {
+        pad.gestures().setHoldRepeatIntervalMs(100);
+        long pressedAt = scheduler.getTime();
+        press();
+        // a held pad keeps sending CCs, they don't move the deadlines
+        pad.update(1, 60);
+
+        scheduler.advance(Gestures.LONG_PRESS_DELAY_MS);
+        assertTrue(pad.gestures().isLongPress());
+        assertFalse(pad.gestures().isHoldRepeat());
+        pad.gestures().clearLongPressEvent();
+
+        scheduler.advance(99);
+        assertEquals(1, deadlineGestures.size());
+        scheduler.advance(1);
+        assertTrue(pad.gestures().isHoldRepeat());
+        assertFalse(pad.gestures().isLongPress());
+
+        scheduler.advance(200);
+        long longPressAt = pressedAt + Gestures.LONG_PRESS_DELAY_MS;
+        assertEquals(List.of(longPressAt, longPressAt + 100, longPressAt + 200, longPressAt + 300), deadlineGestures);
+
+        pad.update(1, 0);
+        release();
+        scheduler.advance(1000);
+        assertEquals(4, deadlineGestures.size());
+    }
+
+    @Test
+    public void holdRepeatIsOffByDefault() {
+        press();
+
+        scheduler.advance(Gestures.LONG_PRESS_DELAY_MS * 3);
+        assertEquals(1, deadlineGestures.size());
+    }
+
+    @Test
+    public void newPressDropsAnUnconsumedLongPress() {
+        press();
+        scheduler.advance(Gestures.LONG_PRESS_DELAY_MS);
+        assertTrue(pad.gestures().isLongPress());
+        release();
+
+        press();
+        assertFalse(pad.gestures().isLongPress());
+    }
+
+    @Test
+    public void doubleTriggerWithinTheWindow() {
+        press();
+        release();
+        scheduler.advance(Gestures.DOUBLE_TRIGGER_WINDOW_MS);
+        press();
+        assertTrue(pad.gestures().isDoubleTrigger());
+
+        // only reported with the press
+        pad.update(1, 60);
+        assertFalse(pad.gestures().isDoubleTrigger());
+    }
+
+    @Test
+    public void noDoubleTriggerAfterTheWindow() {
+        press();
+        release();
+        scheduler.advance(Gestures.DOUBLE_TRIGGER_WINDOW_MS + 1);
+        press();
+        assertFalse(pad.gestures().isDoubleTrigger());
+    }
+
+    @Test
+    public void firstPressIsNoDoubleTrigger() {
+        press();
+        assertFalse(pad.gestures().isDoubleTrigger());
+    }
+}
@@ -0,0 +1,150 @@
+package de.davidrival.softstep.hardware;
+
+import com.bitwig.extension.controller.api.MidiOut;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the encoded CC sequences against what the former setLed sent, through a MidiOut which records.
+ */
+public class LedMessageEncoderTest {
+
+    private List<int[]> sent;
+    private MidiOut midiOut;
+    private LedMessageEncoder encoder;
+
+    @Before
+    public void setUp() {
+        sent = new ArrayList<>();
+        midiOut = (MidiOut) Proxy.newProxyInstance(MidiOut.class.getClassLoader(), new Class<?>[]{MidiOut.class}
+                , (proxy, method, args) -> {
+                    if (method.getName().equals("sendMidi")) {
+                        sent.add(new int[]{(Integer) args[0], (Integer) args[1], (Integer) args[2]});
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        encoder = new LedMessageEncoder();
+    }
+
+    /**
+     * The sequence the former SoftstepHardwareBase.setLed sent for every update.
+     */
+    private static List<int[]> formerSetLed(int number, int color, int mode) {
+        List<int[]> messages = new ArrayList<>();
+        messages.add(new int[]{0xB0, 40, number});
+        messages.add(new int[]{0xB0, 41, color});
+        messages.add(new int[]{0xB0, 42, mode});
+        messages.add(new int[]{0xB0, 0, 0});
+        messages.add(new int[]{0xB0, 0, 0});
+        messages.add(new int[]{0xB0, 0, 0});
+        return messages;
+    }
+
+    private static void assertMessages(String what, List<int[]> expected, List<int[]> actual) {
+        assertEquals(what + " message count", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(what + " message " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void fullPaddingWithoutElisionSendsTheFormerSequence() {
+        encoder.setPaddingPolicy(LedMessageEncoder.PaddingPolicy.FULL);
+        encoder.setElideSelect(false);
+
+        for (int number = 0; number < LedFrameBuffer.NUM_LEDS; number++) {
+            for (int color = 0; color < LedFrameBuffer.NUM_COLORS; color++) {
+                for (int mode = 0; mode < LedMessageEncoder.NUM_MODES; mode++) {
+                    sent.clear();
+                    int count = encoder.write(midiOut, number, color, mode);
+                    String what = "led " + number + " color " + color + " mode " + mode;
+                    assertEquals(what, 6, count);
+                    assertMessages(what, formerSetLed(number, color, mode), sent);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fullPaddingWithoutElisionRepeatsTheSelect() {
+        encoder.setElideSelect(false);
+
+        encoder.write(midiOut, 3, 1, 2);
+        sent.clear();
+        encoder.write(midiOut, 3, 0, 1);
+
+        assertMessages("repeated led", formerSetLed(3, 0, 1), sent);
+    }
+
+    @Test
+    public void elisionDropsOnlyARepeatedSelect() {
+        encoder.setElideSelect(true);
+
+        assertEquals(6, encoder.write(midiOut, 4, 2, 1));
+        assertMessages("first update", formerSetLed(4, 2, 1), sent);
+
+        sent.clear();
+        assertEquals(5, encoder.write(midiOut, 4, 0, 3));
+        assertMessages("same led", formerSetLed(4, 0, 3).subList(1, 6), sent);
+
+        sent.clear();
+        assertEquals(6, encoder.write(midiOut, 5, 0, 3));
+        assertMessages("other led", formerSetLed(5, 0, 3), sent);
+    }
+
+    @Test
+    public void forgottenSelectionIsSentAgain() {
+        encoder.write(midiOut, 7, 1, 1);
+        encoder.forgetSelection();
+        sent.clear();
+
+        encoder.write(midiOut, 7, 1, 0);
+
+        assertMessages("after forgetSelection", formerSetLed(7, 1, 0), sent);
+    }
+
+    @Test
+    public void singlePaddingSendsOnePaddingMessage() {
+        encoder.setPaddingPolicy(LedMessageEncoder.PaddingPolicy.SINGLE);
+        encoder.setElideSelect(false);
+
+        for (int number = 0; number < LedFrameBuffer.NUM_LEDS; number++) {
+            sent.clear();
+            assertEquals(4, encoder.write(midiOut, number, 2, 4));
+            assertMessages("led " + number, formerSetLed(number, 2, 4).subList(0, 4), sent);
+        }
+        assertEquals(4, encoder.maxMessagesPerLed());
+    }
+
+    @Test
+    public void noPaddingSendsSelectColorAndModeOnly() {
+        encoder.setPaddingPolicy(LedMessageEncoder.PaddingPolicy.NONE);
+        encoder.setElideSelect(true);
+
+        assertEquals(3, encoder.write(midiOut, 0, 1, 1));
+        assertMessages("first update", formerSetLed(0, 1, 1).subList(0, 3), sent);
+
+        sent.clear();
+        assertEquals(2, encoder.write(midiOut, 0, 1, 0));
+        assertMessages("same led", formerSetLed(0, 1, 0).subList(1, 3), sent);
+        assertEquals(3, encoder.maxMessagesPerLed());
+    }
+
+    @Test
+    public void changingThePaddingForgetsTheSelection() {
+        encoder.write(midiOut, 2, 0, 1);
+        encoder.setPaddingPolicy(LedMessageEncoder.PaddingPolicy.FULL);
+        sent.clear();
+
+        encoder.write(midiOut, 2, 0, 1);
+
+        assertMessages("after policy change", formerSetLed(2, 0, 1), sent);
+    }
+}
@@ -0,0 +1,89 @@
+package de.davidrival.softstep.hardware;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MidiCommandQueueTest {
+
+    private List<int[]> drained;
+    private int flushRequests;
+    private MidiCommandQueue queue;
+
+    @Before
+    public void setUp() {
+        drained = new ArrayList<>();
+        flushRequests = 0;
+        queue = new MidiCommandQueue((type, byte0, byte1, byte2) -> drained.add(new int[]{type, byte0, byte1, byte2})
+                , () -> flushRequests++);
+    }
+
+    @Test
+    public void commandsAreDrainedInEnqueueOrder() {
+        queue.offerLed(3, 1, 2);
+        queue.offerShortMidi(0xB0, 100, 127);
+        queue.offerDisplay(2, 'A');
+
+        assertTrue(drained.isEmpty());
+        queue.drain();
+
+        assertEquals(3, drained.size());
+        assertArrayEquals(new int[]{MidiCommandQueue.TYPE_LED, 3, 1, 2}, drained.get(0));
+        assertArrayEquals(new int[]{MidiCommandQueue.TYPE_SHORT_MIDI, 0xB0, 100, 127}, drained.get(1));
+        assertArrayEquals(new int[]{MidiCommandQueue.TYPE_DISPLAY, 2, 'A', 0}, drained.get(2));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void oneFlushIsRequestedPerDrain() {
+        queue.offerLed(0, 0, 1);
+        queue.offerLed(1, 0, 1);
+        assertEquals(1, flushRequests);
+
+        queue.drain();
+        queue.offerLed(2, 0, 1);
+        assertEquals(2, flushRequests);
+    }
+
+    @Test
+    public void fullRingGrowsWithoutSendingEarly() {
+        // wrap the ring first, so growing has to unroll it
+        for (int i = 0; i < 100; i++) {
+            queue.offerShortMidi(0xB0, 1, i);
+        }
+        queue.drain();
+        drained.clear();
+
+        int commands = 5000;
+        for (int i = 0; i < commands; i++) {
+            queue.offerShortMidi(0xB0, i >> 7, i & 0x7F);
+        }
+        assertTrue(drained.isEmpty());
+        assertEquals(commands, queue.size());
+
+        queue.drain();
+        assertEquals(commands, drained.size());
+        for (int i = 0; i < commands; i++) {
+            assertEquals(i, (drained.get(i)[2] << 7) | drained.get(i)[3]);
+        }
+    }
+
+    @Test
+    public void commandsQueuedByTheSinkAreDrainedToo() {
+        MidiCommandQueue[] self = new MidiCommandQueue[1];
+        self[0] = new MidiCommandQueue((type, byte0, byte1, byte2) -> {
+            drained.add(new int[]{type, byte0, byte1, byte2});
+            if (byte0 == 0) self[0].offerLed(1, byte1, byte2);
+        }, null);
+
+        self[0].offerLed(0, 2, 3);
+        self[0].drain();
+
+        assertEquals(2, drained.size());
+        assertArrayEquals(new int[]{MidiCommandQueue.TYPE_LED, 1, 2, 3}, drained.get(1));
+    }
+}
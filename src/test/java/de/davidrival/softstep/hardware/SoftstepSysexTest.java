@@ -0,0 +1,49 @@
+package de.davidrival.softstep.hardware;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the built commands against the commands recorded from the device, which were sent as hex strings before.
+ */
+public class SoftstepSysexTest {
+
+    private static final String MODE_STANDALONE = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 04 00 00 00 00 00 00 00 00 17 1f 00 00 00 00 00 f7";
+    private static final String MODE_HOST = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 04 01 00 00 00 00 00 00 00 2f 7e 00 00 00 00 02 f7";
+    private static final String TETHER_A = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 03 00 00 00 00 00 00 00 00 50 07 00 00 00 00 00 f7";
+    private static final String TETHER_B = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 09 00 0b 2b 3a 00 10 03 01 00 00 00 00 00 00 00 68 66 00 00 00 00 00 f7";
+    private static final String BACKLIGHT_ON = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 04 00 05 08 25 01 20 00 00 7b 2c 00 00 00 0c f7";
+    private static final String BACKLIGHT_OFF = "f0 00 1b 48 7a 01 00 00 00 00 00 00 00 00 00 00 00 01 00 04 00 05 08 25 00 20 00 00 4c 1c 00 00 00 0c f7";
+
+    @Test
+    public void modeCommandsMatchTheRecordings() {
+        assertArrayEquals(SoftstepSysex.parse(MODE_STANDALONE), SoftstepSysex.MODE_STANDALONE);
+        assertArrayEquals(SoftstepSysex.parse(MODE_HOST), SoftstepSysex.MODE_HOST);
+    }
+
+    @Test
+    public void tetherCommandsMatchTheRecordings() {
+        assertArrayEquals(SoftstepSysex.parse(TETHER_A), SoftstepSysex.TETHER_A);
+        assertArrayEquals(SoftstepSysex.parse(TETHER_B), SoftstepSysex.TETHER_B);
+    }
+
+    @Test
+    public void backlightCommandsMatchTheRecordings() {
+        assertArrayEquals(SoftstepSysex.parse(BACKLIGHT_ON), SoftstepSysex.BACKLIGHT_ON);
+        assertArrayEquals(SoftstepSysex.parse(BACKLIGHT_OFF), SoftstepSysex.BACKLIGHT_OFF);
+        assertArrayEquals(SoftstepSysex.BACKLIGHT_ON, SoftstepSysex.backlight(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unrecordedBacklightLevelsAreRejected() {
+        SoftstepSysex.backlight(4);
+    }
+
+    @Test
+    public void builtCommandsAreCopies() {
+        byte[] first = SoftstepSysex.backlight(0);
+        first[1] = 0x7F;
+        assertArrayEquals(SoftstepSysex.parse(BACKLIGHT_OFF), SoftstepSysex.backlight(0));
+    }
+}